@@ -0,0 +1,133 @@
+package app.adada.neo4j.benchmark;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import app.adada.neo4j.algo.BatchSampler;
+import app.adada.neo4j.algo.DenseGraph;
+import app.adada.neo4j.algo.NeighborSampler;
+import app.adada.neo4j.util.ReservoirSampling;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Graph reads of one mini-batch against an embedded database: neighbor
+ * sampling, positive and negative sampling, feature gathering and the
+ * reservoir sampler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SamplerBenchmark {
+
+    private static final List<String> FEATURES = List.of(SyntheticGraph.FEATURES);
+    private static final List<String> LABELS = List.of(SyntheticGraph.LABEL.name());
+    private static final List<String> TYPES = List.of(SyntheticGraph.TYPE.name());
+    private static final int BATCHES = 64;
+
+    @Param({ "uniform", "powerlaw" })
+    public String degrees;
+
+    /** Sample sizes per hop, colon separated as JMH splits parameters on commas. */
+    @Param({ "10:5", "25:10" })
+    public String fanout;
+
+    @Param({ "64", "512" })
+    public int batchSize;
+
+    /** Edge budget of {@code neighborSample}, 0 for none. */
+    @Param({ "0" })
+    public long maxSampledEdges;
+
+    @Param({ "20000" })
+    public int nodes;
+
+    @Param({ "10" })
+    public int avgDegree;
+
+    @Param({ "128" })
+    public int dim;
+
+    private SyntheticGraph graph;
+    private List<Long> sampleSizes;
+    private Transaction tx;
+    private List<List<Node>> batches;
+    private NeighborSampler neighborSampler;
+    private BatchSampler batchSampler;
+    private int next;
+
+    @Setup
+    public void setup() {
+        graph = SyntheticGraph.start(nodes, avgDegree, dim, degrees, 42);
+        sampleSizes = Arrays.stream(fanout.split(":")).map(String::trim).map(Long::valueOf).toList();
+    }
+
+    /** Nodes are bound to a transaction, so each iteration reads in its own. */
+    @Setup(Level.Iteration)
+    public void beginIteration() {
+        tx = graph.db().beginTx();
+        batches = graph.batches(tx, BATCHES, batchSize, new Random(7));
+        neighborSampler = new NeighborSampler(7).withBudget(0, maxSampledEdges);
+        batchSampler = new BatchSampler(tx);
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        tx.close();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graph.close();
+    }
+
+    private List<Node> nextBatch() {
+        return batches.get(next++ % BATCHES);
+    }
+
+    @Benchmark
+    public DenseGraph neighborSample() {
+        return neighborSampler.sample(nextBatch(), FEATURES, LABELS, TYPES, sampleSizes);
+    }
+
+    @Benchmark
+    public BatchSampler.ExtendedBatch batchSample() {
+        return batchSampler.sampleBatch(nextBatch(), LABELS, TYPES, 1);
+    }
+
+    @Benchmark
+    public void concatFeatures(Blackhole blackhole) {
+        for (Node node : nextBatch()) {
+            blackhole.consume(NeighborSampler.concatFeatures(node, FEATURES));
+        }
+    }
+
+    @Benchmark
+    public List<Node> reservoirSample() {
+        try (ResourceIterable<Node> all = tx.getAllNodes()) {
+            return ReservoirSampling.sample(all.iterator(), batchSize,
+                    node -> node.hasLabel(SyntheticGraph.LABEL));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package app.adada.neo4j.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.adada.neo4j.algo.similarity.Metric;
+import app.adada.neo4j.algo.similarity.ScalarKernel;
+import app.adada.neo4j.algo.similarity.SimdKernel;
+import app.adada.neo4j.algo.similarity.TopK;
+import app.adada.neo4j.algo.similarity.VectorKernel;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar vs. Vector API kernels for exact top-k search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class SimilarityBenchmark {
+
+    @Param({ "64", "256" })
+    public int dim;
+
+    @Param({ "100000" })
+    public int candidates;
+
+    @Param({ "cosine", "l2" })
+    public String metric;
+
+    @Param({ "scalar", "simd" })
+    public String kernel;
+
+    private float[] query;
+    private float[] data;
+    private VectorKernel vectorKernel;
+    private TopK topK;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        query = new float[dim];
+        for (int i = 0; i < dim; i++) {
+            query[i] = (float) random.nextGaussian();
+        }
+        data = new float[candidates * dim];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (float) random.nextGaussian();
+        }
+        vectorKernel = "simd".equals(kernel) ? new SimdKernel() : new ScalarKernel();
+        topK = new TopK(vectorKernel, Metric.parse(metric));
+    }
+
+    @Benchmark
+    public float dot() {
+        float sum = 0f;
+        for (int row = 0; row < candidates; row++) {
+            sum += vectorKernel.dot(query, 0, data, row * dim, dim);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<TopK.Match> topKSingleThread() {
+        return topK.select(query, data, candidates, dim, 10, 1);
+    }
+
+    @Benchmark
+    public List<TopK.Match> topKParallel() {
+        return topK.select(query, data, candidates, dim, 10, Runtime.getRuntime().availableProcessors());
+    }
+}
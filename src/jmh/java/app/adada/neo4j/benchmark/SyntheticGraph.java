@@ -0,0 +1,161 @@
+package app.adada.neo4j.benchmark;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilder;
+import org.neo4j.harness.Neo4jBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Embedded database holding a random graph for the benchmarks.
+ *
+ * <p>
+ * Every node has the label {@code Node}, a {@code features} float array and,
+ * if classes are requested, a {@code y} class drawn uniformly, and links to
+ * {@code avgDegree} other nodes. With the {@code uniform} degree
+ * distribution the targets are drawn uniformly, so in-degrees are Poisson; with
+ * {@code powerlaw} they are drawn by preferential attachment, which gives a few
+ * hubs with very large in-degree as in citation and co-purchase graphs.
+ */
+public class SyntheticGraph implements AutoCloseable {
+
+    public static final Label LABEL = Label.label("Node");
+    public static final RelationshipType TYPE = RelationshipType.withName("LINKS");
+    public static final String FEATURES = "features";
+    public static final String CLASS = "y";
+
+    private static final int NODES_PER_TX = 10_000;
+
+    private final Neo4j neo4j;
+    private final List<String> nodeIds;
+    private final long relationships;
+
+    private SyntheticGraph(Neo4j neo4j, List<String> nodeIds, long relationships) {
+        this.neo4j = neo4j;
+        this.nodeIds = nodeIds;
+        this.relationships = relationships;
+    }
+
+    /**
+     * @param nodes     number of nodes
+     * @param avgDegree relationships created per node
+     * @param dim       length of the feature arrays
+     * @param degrees   {@code uniform} or {@code powerlaw}
+     * @param seed      seed of the generator
+     */
+    public static SyntheticGraph start(int nodes, int avgDegree, int dim, String degrees, long seed) {
+        return start(Neo4jBuilders.newInProcessBuilder().withDisabledServer(), nodes, avgDegree, dim, 0, degrees,
+                seed);
+    }
+
+    /**
+     * @param builder   the database to start, e.g. with procedures registered
+     * @param nodes     number of nodes
+     * @param avgDegree relationships created per node
+     * @param dim       length of the feature arrays
+     * @param classes   number of classes, or 0 for no {@code y} property
+     * @param degrees   {@code uniform} or {@code powerlaw}
+     * @param seed      seed of the generator
+     */
+    public static SyntheticGraph start(Neo4jBuilder builder, int nodes, int avgDegree, int dim, int classes,
+            String degrees, long seed) {
+        if (!"uniform".equals(degrees) && !"powerlaw".equals(degrees)) {
+            throw new IllegalArgumentException("Unknown degree distribution: " + degrees);
+        }
+        Neo4j neo4j = builder.build();
+        GraphDatabaseService db = neo4j.defaultDatabaseService();
+        Random random = new Random(seed);
+
+        List<String> nodeIds = new ArrayList<>(nodes);
+        for (int start = 0; start < nodes; start += NODES_PER_TX) {
+            try (Transaction tx = db.beginTx()) {
+                for (int i = start; i < Math.min(nodes, start + NODES_PER_TX); i++) {
+                    float[] features = new float[dim];
+                    for (int d = 0; d < dim; d++) {
+                        features[d] = (float) random.nextGaussian();
+                    }
+                    Node node = tx.createNode(LABEL);
+                    node.setProperty(FEATURES, features);
+                    if (classes > 0) {
+                        node.setProperty(CLASS, (long) random.nextInt(classes));
+                    }
+                    nodeIds.add(node.getElementId());
+                }
+                tx.commit();
+            }
+        }
+
+        // Endpoints of all edges so far; drawing from it is preferential attachment
+        int[] endpoints = new int[nodes * avgDegree];
+        int edges = 0;
+        for (int start = 0; start < nodes; start += NODES_PER_TX) {
+            try (Transaction tx = db.beginTx()) {
+                for (int i = start; i < Math.min(nodes, start + NODES_PER_TX); i++) {
+                    Node source = tx.getNodeByElementId(nodeIds.get(i));
+                    for (int k = 0; k < avgDegree; k++) {
+                        int target = "powerlaw".equals(degrees) && edges > 0 && random.nextBoolean()
+                                ? endpoints[random.nextInt(edges)]
+                                : random.nextInt(nodes);
+                        if (target == i) {
+                            continue;
+                        }
+                        source.createRelationshipTo(tx.getNodeByElementId(nodeIds.get(target)), TYPE);
+                        endpoints[edges++] = target;
+                    }
+                }
+                tx.commit();
+            }
+        }
+        return new SyntheticGraph(neo4j, nodeIds, edges);
+    }
+
+    public GraphDatabaseService db() {
+        return neo4j.defaultDatabaseService();
+    }
+
+    public int nodeCount() {
+        return nodeIds.size();
+    }
+
+    public long relationshipCount() {
+        return relationships;
+    }
+
+    /**
+     * Random batches of distinct nodes bound to the given transaction, as the
+     * samplers expect distinct seeds.
+     */
+    public List<List<Node>> batches(Transaction tx, int count, int batchSize, Random random) {
+        int[] order = new int[nodeIds.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        int size = Math.min(batchSize, order.length);
+        List<List<Node>> batches = new ArrayList<>(count);
+        for (int b = 0; b < count; b++) {
+            List<Node> batch = new ArrayList<>(size);
+            // Partial Fisher-Yates: the first size entries are a uniform sample
+            for (int i = 0; i < size; i++) {
+                int j = i + random.nextInt(order.length - i);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+                batch.add(tx.getNodeByElementId(nodeIds.get(order[i])));
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    @Override
+    public void close() {
+        neo4j.close();
+    }
+}
@@ -0,0 +1,117 @@
+package app.adada.neo4j.benchmark;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import app.adada.neo4j.algo.BatchSampler;
+import app.adada.neo4j.algo.DenseGraph;
+import app.adada.neo4j.algo.NeighborSampler;
+import app.adada.neo4j.gnn.training.GraphSageUnsupervisedLoss;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Native side of one mini-batch: copying a sampled subgraph into NDArrays and
+ * the unsupervised loss over its positive and negative edges. The subgraph is
+ * sampled once from the synthetic graph, so only tensor work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TensorBenchmark {
+
+    @Param({ "uniform", "powerlaw" })
+    public String degrees;
+
+    /** Sample sizes per hop, colon separated as JMH splits parameters on commas. */
+    @Param({ "10:5", "25:10" })
+    public String fanout;
+
+    @Param({ "64", "512" })
+    public int batchSize;
+
+    @Param({ "20000" })
+    public int nodes;
+
+    @Param({ "10" })
+    public int avgDegree;
+
+    @Param({ "128" })
+    public int dim;
+
+    @Param({ "64" })
+    public int embeddingDim;
+
+    private DenseGraph subgraph;
+    private NDManager manager;
+    private NDArray embeddings;
+    private NDArray positiveEdges;
+    private NDArray negativeEdges;
+    private GraphSageUnsupervisedLoss loss;
+
+    @Setup
+    public void setup() {
+        List<Long> sampleSizes = Arrays.stream(fanout.split(":")).map(String::trim).map(Long::valueOf).toList();
+        List<String> labels = List.of(SyntheticGraph.LABEL.name());
+        List<String> types = List.of(SyntheticGraph.TYPE.name());
+        BatchSampler.ExtendedBatch extended;
+        try (SyntheticGraph graph = SyntheticGraph.start(nodes, avgDegree, dim, degrees, 42);
+                Transaction tx = graph.db().beginTx()) {
+            List<Node> batch = graph.batches(tx, 1, batchSize, new Random(7)).get(0);
+            extended = new BatchSampler(tx).sampleBatch(batch, labels, types, 1);
+            subgraph = new NeighborSampler(7).sample(extended.nodes, List.of(SyntheticGraph.FEATURES), labels,
+                    types, sampleSizes);
+        }
+        manager = NDManager.newBaseManager();
+        embeddings = manager.randomNormal(new Shape(subgraph.getFeatures().length, embeddingDim));
+        positiveEdges = manager.create(extended.positiveEdges);
+        negativeEdges = manager.create(extended.negativeEdges);
+        loss = new GraphSageUnsupervisedLoss(1f);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Benchmark
+    public long ndarrayCreation() {
+        try (NDManager batch = manager.newSubManager()) {
+            NDArray x = batch.create(subgraph.getFeatures());
+            NDArray edgeIndex = batch.create(subgraph.getEdges());
+            return x.size() + edgeIndex.size();
+        }
+    }
+
+    @Benchmark
+    public float unsupervisedLoss() {
+        try (NDManager batch = manager.newSubManager()) {
+            // Intermediates go to the manager of the inputs, which is closed after each call
+            NDList prediction = new NDList(embeddings, positiveEdges, negativeEdges);
+            prediction.tempAttach(batch);
+            return loss.evaluate(new NDList(), prediction).getFloat();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package app.adada.neo4j.benchmark;
+
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.harness.Neo4jBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import app.adada.neo4j.procedure.GraphSage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end training benchmark that needs neither a server nor dataset
+ * downloads.
+ *
+ * <p>
+ * For each dataset shape an in-process database is started with the plugin
+ * procedures, filled with a synthetic graph with the node count (times
+ * {@code --scale}), average degree, feature dimension and class count of the
+ * real dataset, and trained with {@code neotorch.graphsage.train} using fixed
+ * seeds. Epoch times, throughput, peak memory and losses of every run are
+ * written as JSON, so runs on different commits can be diffed.
+ *
+ * <pre>
+ * --datasets          cora,arxiv,products
+ * --scale             fraction of the real node count, default 0.05
+ * --seed              seed of the generator and of training, default 42
+ * --epochs            default 3
+ * --batchSize         default 256
+ * --maxIterations     batches per epoch, default 50
+ * --supervised        train on the {@code y} classes instead of links
+ * --batchComposition  random, balanced or both as random,balanced, default random
+ * --out               default target/train-benchmark.json
+ * </pre>
+ */
+public class TrainBenchmark {
+
+    /** Node count, average degree, feature dimension and classes of the OGB and Planetoid datasets. */
+    private record DatasetShape(String name, int nodes, int avgDegree, int featureDim, int classes) {
+    }
+
+    private static final Map<String, DatasetShape> SHAPES = Map.of(
+            "cora", new DatasetShape("cora", 2_708, 2, 1_433, 7),
+            "arxiv", new DatasetShape("arxiv", 169_343, 7, 128, 40),
+            "products", new DatasetShape("products", 2_449_029, 25, 100, 47));
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "datasets", "cora,arxiv,products",
+                "scale", "0.05",
+                "seed", "42",
+                "epochs", "3",
+                "batchSize", "256",
+                "maxIterations", "50",
+                "supervised", "false",
+                "batchComposition", "random",
+                "out", "target/train-benchmark.json"));
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || !options.containsKey(args[i].substring(2))) {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            options.put(key, "supervised".equals(key) ? "true" : args[++i]);
+        }
+
+        double scale = Double.parseDouble(options.get("scale"));
+        long seed = Long.parseLong(options.get("seed"));
+        List<Map<String, Object>> runs = new ArrayList<>();
+        for (String name : options.get("datasets").split(",")) {
+            DatasetShape shape = SHAPES.get(name.trim());
+            if (shape == null) {
+                throw new IllegalArgumentException("Unknown dataset: " + name + ", expected one of " + SHAPES.keySet());
+            }
+            runs.addAll(run(shape, Math.max(100, (int) Math.round(shape.nodes() * scale)), seed, options));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        report.put("runs", runs);
+        Path out = Path.of(options.get("out"));
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(out.toFile(), report);
+        System.out.printf("Wrote %d runs to %s%n", runs.size(), out.toAbsolutePath());
+    }
+
+    /**
+     * Generates the graph of one dataset shape and trains once per batch
+     * composition on it, so their measured batch times can be compared.
+     */
+    private static List<Map<String, Object>> run(DatasetShape shape, int nodes, long seed,
+            Map<String, String> options) {
+        System.out.printf("%s: generating %d nodes%n", shape.name(), nodes);
+        long start = System.nanoTime();
+        try (SyntheticGraph graph = SyntheticGraph.start(
+                Neo4jBuilders.newInProcessBuilder()
+                        .withDisabledServer()
+                        .withConfig(GraphDatabaseSettings.procedure_unrestricted, List.of("neotorch.*"))
+                        .withProcedure(GraphSage.class),
+                nodes, shape.avgDegree(), shape.featureDim(), shape.classes(), "powerlaw", seed)) {
+            double generateSeconds = (System.nanoTime() - start) / 1e9;
+            List<Map<String, Object>> runs = new ArrayList<>();
+            for (String composition : options.get("batchComposition").split(",")) {
+                runs.add(train(graph, shape, generateSeconds, composition.trim(), seed, options));
+            }
+            return runs;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> train(SyntheticGraph graph, DatasetShape shape, double generateSeconds,
+            String batchComposition, long seed, Map<String, String> options) {
+        Map<String, Object> config = new HashMap<>();
+        config.put("featureProperties", List.of(SyntheticGraph.FEATURES));
+        config.put("featureDimension", shape.featureDim());
+        config.put("nodeLabels", List.of(SyntheticGraph.LABEL.name()));
+        config.put("relationshipTypes", List.of(SyntheticGraph.TYPE.name()));
+        config.put("supervised", Boolean.parseBoolean(options.get("supervised")));
+        config.put("classProperties", SyntheticGraph.CLASS);
+        config.put("classDimension", shape.classes());
+        config.put("hiddenDimension", 256);
+        config.put("builder", "java");
+        config.put("randomSeed", seed);
+        config.put("epochs", Long.parseLong(options.get("epochs")));
+        config.put("batchSize", Long.parseLong(options.get("batchSize")));
+        config.put("maxIterations", Long.parseLong(options.get("maxIterations")));
+        config.put("batchComposition", batchComposition);
+
+        String modelName = "benchmark-" + shape.name();
+        System.out.printf("%s: training on %d nodes, %d relationships with %s batches%n", shape.name(),
+                graph.nodeCount(), graph.relationshipCount(), batchComposition);
+        long start = System.nanoTime();
+        Map<String, Object> modelInfo;
+        try (Transaction tx = graph.db().beginTx();
+                Result result = tx.execute(
+                        "MATCH (n:Node) WITH collect(n) AS nodes "
+                                + "CALL neotorch.graphsage.train($modelName, nodes, $config) YIELD modelInfo "
+                                + "RETURN modelInfo",
+                        Map.of("modelName", modelName, "config", config))) {
+            modelInfo = (Map<String, Object>) result.next().get("modelInfo");
+            tx.commit();
+        }
+        double trainSeconds = (System.nanoTime() - start) / 1e9;
+        graph.db().executeTransactionally("CALL neotorch.graphsage.drop($modelName)",
+                Map.of("modelName", modelName));
+
+        Map<String, Object> metrics = (Map<String, Object>) modelInfo.get("metrics");
+        List<Number> losses = (List<Number>) metrics.get("epochLosses");
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("dataset", shape.name());
+        run.put("batchComposition", batchComposition);
+        run.put("nodes", graph.nodeCount());
+        run.put("relationships", graph.relationshipCount());
+        run.put("featureDimension", shape.featureDim());
+        run.put("generateSeconds", generateSeconds);
+        run.put("trainSeconds", trainSeconds);
+        run.put("epochSeconds", metrics.get("epochSeconds"));
+        run.put("samplingSeconds", metrics.get("samplingSeconds"));
+        run.put("computeSeconds", metrics.get("computeSeconds"));
+        run.put("batchesPerSecond", metrics.get("batchesPerSecond"));
+        run.put("seedNodesPerSecond", metrics.get("seedNodesPerSecond"));
+        run.put("batchSeconds", metrics.get("batchSeconds"));
+        run.put("batchCost", metrics.get("batchCost"));
+        run.put("peakHeapBytes", metrics.get("peakHeapBytes"));
+        run.put("peakNativeBytes", metrics.get("peakNativeBytes"));
+        run.put("peakRssBytes", metrics.get("peakRssBytes"));
+        run.put("epochLosses", losses);
+        run.put("finalLoss", losses == null || losses.isEmpty() ? null : losses.get(losses.size() - 1));
+        return run;
+    }
+}
@@ -0,0 +1,142 @@
+package app.adada.neo4j.algo;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact in-memory topology of the model graph.
+ *
+ * <p>
+ * Nodes matching {@code nodeLabels} get a dense index in the order of their
+ * internal ids; incoming relationships of {@code relationshipTypes} between
+ * such nodes are stored in CSR form ({@code offsets}, {@code neighbors}).
+ * Internal ids are kept although Neo4j deprecates them, since they are
+ * dense longs that sort and binary-search cheaply, unlike element ids.
+ */
+public class CompactGraph {
+    private final long[] nodeIds;
+    private final int[] offsets;
+    private final int[] neighbors;
+
+    private CompactGraph(long[] nodeIds, int[] offsets, int[] neighbors) {
+        this.nodeIds = nodeIds;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Reads the topology from the graph.
+     *
+     * @param tx                the transaction to read with
+     * @param nodeLabels        allowed node labels ("*" means any)
+     * @param relationshipTypes allowed rel types ("*" means any)
+     * @return the compact graph
+     */
+    @SuppressWarnings("removal")
+    public static CompactGraph load(Transaction tx, List<String> nodeLabels, List<String> relationshipTypes) {
+        long[] ids = nodeIds(tx, nodeLabels);
+        RelationshipType[] relTypes = relationshipTypes.stream()
+                .map(RelationshipType::withName)
+                .toArray(RelationshipType[]::new);
+
+        int[] offsets = new int[ids.length + 1];
+        int[] neighbors = new int[Math.max(16, ids.length)];
+        int size = 0;
+        for (int i = 0; i < ids.length; i++) {
+            Node n = tx.getNodeById(ids[i]);
+            Iterable<Relationship> rels = relationshipTypes.contains("*")
+                    ? n.getRelationships(Direction.INCOMING)
+                    : n.getRelationships(Direction.INCOMING, relTypes);
+            for (Relationship r : rels) {
+                int neighbor = Arrays.binarySearch(ids, r.getOtherNode(n).getId());
+                if (neighbor < 0) {
+                    continue; // neighbor does not match the node labels
+                }
+                if (size == neighbors.length) {
+                    neighbors = Arrays.copyOf(neighbors, Math.toIntExact(Math.min(Integer.MAX_VALUE - 8,
+                            (long) neighbors.length * 2)));
+                }
+                neighbors[size++] = neighbor;
+            }
+            offsets[i + 1] = size;
+        }
+        return new CompactGraph(ids, offsets, Arrays.copyOf(neighbors, size));
+    }
+
+    @SuppressWarnings("removal")
+    private static long[] nodeIds(Transaction tx, List<String> nodeLabels) {
+        long[] ids = new long[1024];
+        int size = 0;
+        if (nodeLabels.contains("*")) {
+            try (ResourceIterator<Node> it = tx.getAllNodes().iterator()) {
+                while (it.hasNext()) {
+                    if (size == ids.length) {
+                        ids = Arrays.copyOf(ids, size * 2);
+                    }
+                    ids[size++] = it.next().getId();
+                }
+            }
+        } else {
+            for (String label : nodeLabels) {
+                try (ResourceIterator<Node> it = tx.findNodes(Label.label(label))) {
+                    while (it.hasNext()) {
+                        if (size == ids.length) {
+                            ids = Arrays.copyOf(ids, size * 2);
+                        }
+                        ids[size++] = it.next().getId();
+                    }
+                }
+            }
+        }
+        ids = Arrays.copyOf(ids, size);
+        Arrays.sort(ids);
+        // a node may carry several of the labels
+        int unique = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public long relationshipCount() {
+        return neighbors.length;
+    }
+
+    /** Internal Neo4j id of the node at {@code index}. */
+    public long nodeId(int index) {
+        return nodeIds[index];
+    }
+
+    /** Dense index of the node with the given internal id, or -1. */
+    public int indexOf(long nodeId) {
+        int index = Arrays.binarySearch(nodeIds, nodeId);
+        return index < 0 ? -1 : index;
+    }
+
+    public int degree(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /** Start of the incoming neighbors of {@code index} in {@link #neighbors()}. */
+    public int offset(int index) {
+        return offsets[index];
+    }
+
+    public int[] neighbors() {
+        return neighbors;
+    }
+}
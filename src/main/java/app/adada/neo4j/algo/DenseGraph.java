@@ -16,4 +16,10 @@ public class DenseGraph {
     public long[][] getEdges() {
         return edges;
     }
+
+    /** Size of the feature and edge arrays as tensors. */
+    public long byteSize() {
+        long featureBytes = features.length == 0 ? 0 : (long) features.length * features[0].length * Float.BYTES;
+        return featureBytes + (long) edges.length * (edges.length == 0 ? 0 : edges[0].length) * Long.BYTES;
+    }
 }
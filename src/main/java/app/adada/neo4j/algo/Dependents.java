@@ -0,0 +1,105 @@
+package app.adada.neo4j.algo;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+import app.adada.neo4j.util.LongBitSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolves the nodes whose embeddings depend on a set of changed nodes.
+ *
+ * <p>
+ * A node aggregates its incoming neighbors, so a change propagates along
+ * outgoing relationships: with {@code hops} GNN layers every node reachable
+ * within {@code hops} outgoing steps of a changed node is affected.
+ */
+public class Dependents {
+
+    private Dependents() {
+    }
+
+    /**
+     * @param tx                the transaction to read with
+     * @param seeds             internal ids of the changed nodes
+     * @param hops              the number of GNN layers
+     * @param nodeLabels        allowed node labels ("*" means any)
+     * @param relationshipTypes allowed rel types ("*" means any)
+     * @return the existing seeds and dependents matching {@code nodeLabels}
+     */
+    @SuppressWarnings("removal")
+    public static List<Node> resolve(Transaction tx, LongBitSet seeds, int hops, List<String> nodeLabels,
+            List<String> relationshipTypes) {
+        RelationshipType[] relTypes = relationshipTypes.stream()
+                .map(RelationshipType::withName)
+                .toArray(RelationshipType[]::new);
+        Label[] labels = nodeLabels.stream().map(Label::label).toArray(Label[]::new);
+
+        LongBitSet visited = new LongBitSet();
+        visited.or(seeds);
+        List<Node> result = new ArrayList<>();
+        long[] frontier = new long[1024];
+        int size = 0;
+        for (long id = seeds.nextSetBit(0); id >= 0; id = seeds.nextSetBit(id + 1)) {
+            if (size == frontier.length) {
+                frontier = Arrays.copyOf(frontier, size * 2);
+            }
+            frontier[size++] = id;
+        }
+
+        for (int hop = 0; hop <= hops && size > 0; hop++) {
+            long[] next = new long[Math.max(16, size)];
+            int nextSize = 0;
+            for (int i = 0; i < size; i++) {
+                Node node;
+                try {
+                    node = tx.getNodeById(frontier[i]);
+                } catch (NotFoundException e) {
+                    continue; // deleted since the change was recorded
+                }
+                if (matches(node, nodeLabels, labels)) {
+                    result.add(node);
+                }
+                if (hop == hops) {
+                    continue;
+                }
+                Iterable<Relationship> rels = relationshipTypes.contains("*")
+                        ? node.getRelationships(Direction.OUTGOING)
+                        : node.getRelationships(Direction.OUTGOING, relTypes);
+                for (Relationship r : rels) {
+                    long neighbor = r.getEndNodeId();
+                    if (!visited.get(neighbor)) {
+                        visited.set(neighbor);
+                        if (nextSize == next.length) {
+                            next = Arrays.copyOf(next, nextSize * 2);
+                        }
+                        next[nextSize++] = neighbor;
+                    }
+                }
+            }
+            frontier = next;
+            size = nextSize;
+        }
+        return result;
+    }
+
+    static boolean matches(Node node, List<String> nodeLabels, Label[] labels) {
+        if (nodeLabels.contains("*")) {
+            return true;
+        }
+        for (Label label : labels) {
+            if (node.hasLabel(label)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
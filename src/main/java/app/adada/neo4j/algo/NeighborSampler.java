@@ -4,17 +4,57 @@ import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
+
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.Stage;
+
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 /**
  * Multi-hop neighbor sampler for GraphSAGE.
+ *
+ * <p>
+ * With a budget, the subgraph of a batch holds at most
+ * {@code maxSampledNodes} nodes and {@code maxSampledEdges} edges, so batches
+ * that hit hubs cost about as much as the others. The remaining budget is
+ * split over the remaining hops in proportion to their nominal size, and the
+ * fanout of a hop is lowered only as far as its share requires: using the
+ * degrees of the frontier, every frontier node gets its
+ * {@code min(fanout, degree)} neighbors up to a common cap, and the nodes at
+ * the cap share what is left at random. Low-degree nodes thus keep their whole
+ * neighborhood and hubs give up neighbors first.
  */
 public class NeighborSampler {
-    private final Random random = new Random();
+    private final Random random;
+    private long maxSampledNodes;
+    private long maxSampledEdges;
 
     public NeighborSampler() {
+        this.random = new Random();
+    }
+
+    public NeighborSampler(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Caps the size of sampled subgraphs. The batch nodes are always kept, so
+     * a batch larger than {@code maxSampledNodes} is sampled without
+     * neighbors.
+     *
+     * @param maxSampledNodes the maximum number of nodes, or 0 for no cap
+     * @param maxSampledEdges the maximum number of edges, or 0 for no cap
+     * @return this sampler
+     */
+    public NeighborSampler withBudget(long maxSampledNodes, long maxSampledEdges) {
+        if (maxSampledNodes < 0 || maxSampledEdges < 0) {
+            throw new IllegalArgumentException("`maxSampledNodes` and `maxSampledEdges` must not be negative");
+        }
+        this.maxSampledNodes = maxSampledNodes;
+        this.maxSampledEdges = maxSampledEdges;
+        return this;
     }
 
     /**
@@ -32,6 +72,7 @@ public class NeighborSampler {
             List<String> nodeLabels,
             List<String> relationshipTypes,
             List<Long> immutableSampleSizes) {
+        long start = System.nanoTime();
         // Reverse sampleSizes for layer order
         List<Long> sampleSizes = new ArrayList<>(immutableSampleSizes);
         Collections.reverse(sampleSizes);
@@ -42,19 +83,35 @@ public class NeighborSampler {
         for (Node n : batchNodes)
             nodeIndex.put(n.getElementId(), nodeIndex.size());
 
+        List<RelationshipType> relTypes = relationshipTypes.stream()
+                .map(RelationshipType::withName)
+                .collect(Collectors.toList());
+        RelationshipType[] types = relationshipTypes.contains("*") ? null : relTypes.toArray(new RelationshipType[0]);
+
+        // Nominal edges per hop, for splitting the budget over the hops
+        double[] nominal = new double[sampleSizes.size()];
+        double width = batchNodes.size();
+        for (int hop = 0; hop < nominal.length; hop++) {
+            width *= sampleSizes.get(hop);
+            nominal[hop] = width;
+        }
+
         List<long[]> edges = new ArrayList<>();
         List<Node> frontier = new ArrayList<>(batchNodes);
         for (int hop = 0; hop < sampleSizes.size(); hop++) {
-            int numSample = sampleSizes.get(hop).intValue();
+            int[] fanouts = fanouts(frontier, sampleSizes.get(hop).intValue(), types,
+                    hopBudget(nominal, hop, allNodes.size(), edges.size()));
             List<Node> nextFrontier = new ArrayList<>();
-            for (Node n : frontier) {
+            for (int f = 0; f < frontier.size(); f++) {
+                Node n = frontier.get(f);
+                int numSample = fanouts[f];
+                if (numSample == 0) {
+                    continue;
+                }
                 // incoming neighbors
-                List<RelationshipType> relTypes = relationshipTypes.stream()
-                        .map(RelationshipType::withName)
-                        .collect(Collectors.toList());
-                Iterable<Relationship> rels = (relationshipTypes.contains("*")
+                Iterable<Relationship> rels = (types == null
                         ? n.getRelationships(Direction.INCOMING)
-                        : n.getRelationships(Direction.INCOMING, relTypes.toArray(new RelationshipType[0])));
+                        : n.getRelationships(Direction.INCOMING, types));
 
                 List<Relationship> compliantRels = StreamSupport.stream(rels.spliterator(), false)
                         .filter(r -> matchesLabels(r.getOtherNode(n), nodeLabels))
@@ -89,13 +146,17 @@ public class NeighborSampler {
             frontier = nextFrontier;
 
         }
+        MetricsRegistry.record(Stage.SAMPLING, start, edges.size());
+
         // Build feature matrix
+        start = System.nanoTime();
         int N = allNodes.size();
         int D = countFeatureDim(featureProperties, allNodes.get(0));
         float[][] x = new float[N][D];
         for (int i = 0; i < N; i++) {
             x[i] = concatFeatures(allNodes.get(i), featureProperties);
         }
+        MetricsRegistry.record(Stage.FEATURE_GATHER, start, N);
         // Build edge index array
         long[][] edgeIndex = new long[2][edges.size()];
         for (int i = 0; i < edges.size(); i++) {
@@ -105,6 +166,87 @@ public class NeighborSampler {
         return new DenseGraph(x, edgeIndex);
     }
 
+    /**
+     * The edges hop {@code hop} may add: its nominal share of what is left of
+     * the budget. Each edge adds at most one node, so the node budget bounds
+     * the edges too.
+     */
+    private long hopBudget(double[] nominal, int hop, long sampledNodes, long sampledEdges) {
+        if (maxSampledNodes == 0 && maxSampledEdges == 0) {
+            return Long.MAX_VALUE;
+        }
+        double remaining = 0;
+        for (int h = hop; h < nominal.length; h++) {
+            remaining += nominal[h];
+        }
+        double share = remaining == 0 ? 1 : nominal[hop] / remaining;
+        long budget = Long.MAX_VALUE;
+        if (maxSampledNodes > 0) {
+            budget = Math.min(budget, (long) (Math.max(0, maxSampledNodes - sampledNodes) * share));
+        }
+        if (maxSampledEdges > 0) {
+            budget = Math.min(budget, (long) (Math.max(0, maxSampledEdges - sampledEdges) * share));
+        }
+        return budget;
+    }
+
+    /**
+     * Per-node fanouts of a hop that sample at most {@code budget} edges: the
+     * largest common cap {@code k <= fanout} with
+     * {@code sum(min(k, degree)) <= budget}, plus one more neighbor for random
+     * nodes above the cap while budget is left.
+     */
+    private int[] fanouts(List<Node> frontier, int fanout, RelationshipType[] types, long budget) {
+        int[] fanouts = new int[frontier.size()];
+        if (budget == Long.MAX_VALUE) {
+            Arrays.fill(fanouts, fanout);
+            return fanouts;
+        }
+        int[] degrees = new int[frontier.size()];
+        for (int i = 0; i < degrees.length; i++) {
+            Node n = frontier.get(i);
+            // An upper bound, as neighbors are filtered by label when sampled
+            if (types == null) {
+                degrees[i] = n.getDegree(Direction.INCOMING);
+            } else {
+                for (RelationshipType type : types) {
+                    degrees[i] += n.getDegree(type, Direction.INCOMING);
+                }
+            }
+        }
+        int low = 0;
+        int high = fanout;
+        while (low < high) {
+            int k = (low + high + 1) / 2;
+            if (cappedSum(degrees, k) <= budget) {
+                low = k;
+            } else {
+                high = k - 1;
+            }
+        }
+        List<Integer> aboveCap = new ArrayList<>();
+        for (int i = 0; i < degrees.length; i++) {
+            fanouts[i] = Math.min(low, degrees[i]);
+            if (degrees[i] > low && low < fanout) {
+                aboveCap.add(i);
+            }
+        }
+        long left = budget - cappedSum(degrees, low);
+        Collections.shuffle(aboveCap, random);
+        for (int i = 0; i < aboveCap.size() && i < left; i++) {
+            fanouts[aboveCap.get(i)]++;
+        }
+        return fanouts;
+    }
+
+    private static long cappedSum(int[] degrees, int cap) {
+        long sum = 0;
+        for (int degree : degrees) {
+            sum += Math.min(cap, degree);
+        }
+        return sum;
+    }
+
     // private String buildQuery(List<String> nodeLabels,
     // List<String> relationshipTypes,
     // int limit) {
@@ -129,7 +271,7 @@ public class NeighborSampler {
         return false;
     }
 
-    private int countFeatureDim(List<String> featureProperties, Node any) {
+    public static int countFeatureDim(List<String> featureProperties, Node any) {
         // Assume first in db
         int dim = 0;
         for (String prop : featureProperties) {
@@ -145,7 +287,7 @@ public class NeighborSampler {
         return dim;
     }
 
-    private float[] concatFeatures(Node n, List<String> featureProperties) {
+    public static float[] concatFeatures(Node n, List<String> featureProperties) {
         List<Float> feats = new ArrayList<>();
         for (String prop : featureProperties) {
             Object val = n.getProperty(prop);
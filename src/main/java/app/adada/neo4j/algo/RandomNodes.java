@@ -0,0 +1,73 @@
+package app.adada.neo4j.algo;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Draws a uniform sample of nodes by probing random internal ids, so the cost
+ * depends on the sample size and not on the graph size.
+ *
+ * <p>
+ * Ids are drawn below the node count of the count store, raised to
+ * {@code minIdBound}. Internal ids are dense, as deleted ids are reused, so
+ * most probes hit a node. Probes that miss, match no label of the model or are
+ * excluded are retried up to {@value #PROBES_PER_NODE} times the sample size.
+ */
+public class RandomNodes {
+
+    private static final int PROBES_PER_NODE = 16;
+
+    private RandomNodes() {
+    }
+
+    /**
+     * @param tx         the transaction to read with
+     * @param size       the number of nodes to draw
+     * @param nodeLabels allowed node labels ("*" means any)
+     * @param minIdBound a known exclusive upper bound of existing ids, e.g. one
+     *                   past the highest changed node
+     * @param exclude    internal ids to leave out
+     * @param seed       seed of the probed ids
+     * @return up to {@code size} distinct nodes; fewer if the probes run out
+     */
+    @SuppressWarnings("removal")
+    public static List<Node> sample(Transaction tx, int size, List<String> nodeLabels, long minIdBound,
+            LongPredicate exclude, long seed) {
+        if (!(tx instanceof InternalTransaction internal)) {
+            throw new IllegalStateException("Random node sampling needs a kernel transaction");
+        }
+        long bound = Math.max(minIdBound, internal.kernelTransaction().dataRead().nodesGetCount());
+        Label[] labels = nodeLabels.stream().map(Label::label).toArray(Label[]::new);
+
+        Random random = new Random(seed);
+        Set<Long> drawn = new HashSet<>();
+        List<Node> result = new ArrayList<>(size);
+        long probes = (long) size * PROBES_PER_NODE;
+        for (long p = 0; p < probes && result.size() < size && bound > 0; p++) {
+            long id = random.nextLong(bound);
+            if (exclude.test(id) || !drawn.add(id)) {
+                continue;
+            }
+            Node node;
+            try {
+                node = tx.getNodeById(id);
+            } catch (NotFoundException e) {
+                continue; // unused or deleted id
+            }
+            if (Dependents.matches(node, nodeLabels, labels)) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+}
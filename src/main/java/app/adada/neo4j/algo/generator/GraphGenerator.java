@@ -0,0 +1,267 @@
+package app.adada.neo4j.algo.generator;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransientFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates a random graph with node features for load tests.
+ *
+ * <p>
+ * The edges are drawn in memory first, into int arrays sorted by source, and
+ * then nodes and relationships are written in parallel transactions of
+ * {@code writeBatchSize} entities by {@code writeConcurrency} workers. Every
+ * chunk draws from its own generator seeded by {@code seed} and the chunk
+ * index, so the graph depends on the seed only, not on the concurrency.
+ * Relationship chunks share target nodes, so a chunk that fails on a
+ * transient error such as a deadlock is rolled back and retried.
+ */
+public class GraphGenerator {
+
+    /** Quadrant probabilities of R-MAT as in Graph500; the fourth is 0.05. */
+    private static final double RMAT_A = 0.57;
+    private static final double RMAT_B = 0.19;
+    private static final double RMAT_C = 0.19;
+    private static final int MAX_ATTEMPTS = 10;
+
+    public record Stats(long nodes, long relationships, long generateMillis, long writeMillis) {
+    }
+
+    /** Edges as parallel arrays of node indexes, sorted by source. */
+    public record Edges(int[] sources, int[] targets) {
+    }
+
+    private final GraphDatabaseService db;
+    private final GraphGeneratorConfig config;
+
+    public GraphGenerator(GraphDatabaseService db, GraphGeneratorConfig config) {
+        this.db = db;
+        this.config = config;
+    }
+
+    public Stats generate() {
+        int concurrency = config.writeConcurrency().intValue();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            long start = System.nanoTime();
+            Edges edges = edges(executor);
+            long generateMillis = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            long[] ids = writeNodes(executor);
+            writeRelationships(executor, edges, ids);
+            long writeMillis = (System.nanoTime() - start) / 1_000_000;
+            return new Stats(ids.length, edges.sources().length, generateMillis, writeMillis);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SplittableRandom random(long chunk) {
+        return new SplittableRandom(config.seed() * 31 + chunk);
+    }
+
+    // --- Edges ---
+
+    private Edges edges(ExecutorService executor) {
+        int n = config.nodes().intValue();
+        int m = (int) config.relationships();
+        if (GraphModel.parse(config.model()) == GraphModel.BA) {
+            return preferentialAttachment(n, m);
+        }
+        boolean rmat = GraphModel.parse(config.model()) == GraphModel.RMAT;
+        int bits = 32 - Integer.numberOfLeadingZeros(n - 1);
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        int chunkSize = config.writeBatchSize().intValue();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < m; from += chunkSize) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(m, from + chunkSize);
+            futures.add(executor.submit(() -> {
+                SplittableRandom random = random(chunkFrom / chunkSize);
+                for (int e = chunkFrom; e < chunkTo; e++) {
+                    int u;
+                    int v;
+                    do {
+                        if (rmat) {
+                            u = 0;
+                            v = 0;
+                            for (int bit = 0; bit < bits; bit++) {
+                                double r = random.nextDouble();
+                                u = (u << 1) | (r >= RMAT_A + RMAT_B ? 1 : 0);
+                                v = (v << 1) | ((r >= RMAT_A && r < RMAT_A + RMAT_B) || r >= RMAT_A + RMAT_B + RMAT_C
+                                        ? 1
+                                        : 0);
+                            }
+                        } else {
+                            u = random.nextInt(n);
+                            v = random.nextInt(n);
+                        }
+                    } while (u >= n || v >= n || u == v);
+                    sources[e] = u;
+                    targets[e] = v;
+                }
+            }));
+        }
+        await(futures, "draw edges");
+        return sortBySource(n, sources, targets);
+    }
+
+    /**
+     * Each new node links to endpoints of earlier edges, i.e. to nodes in
+     * proportion to their degree. Sequential by nature, and already sorted.
+     */
+    private Edges preferentialAttachment(int n, int m) {
+        SplittableRandom random = random(0);
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        int[] endpoints = new int[2 * m];
+        int count = 0;
+        for (int e = 0; e < m; e++) {
+            int source = 1 + (int) ((long) e * (n - 1) / m);
+            int target = count == 0 ? 0 : endpoints[random.nextInt(count)];
+            if (target == source) {
+                target = random.nextInt(source);
+            }
+            sources[e] = source;
+            targets[e] = target;
+            endpoints[count++] = source;
+            endpoints[count++] = target;
+        }
+        return new Edges(sources, targets);
+    }
+
+    private static Edges sortBySource(int n, int[] sources, int[] targets) {
+        int[] offsets = new int[n + 1];
+        for (int source : sources) {
+            offsets[source + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] sortedSources = new int[sources.length];
+        int[] sortedTargets = new int[targets.length];
+        for (int e = 0; e < sources.length; e++) {
+            int position = offsets[sources[e]]++;
+            sortedSources[position] = sources[e];
+            sortedTargets[position] = targets[e];
+        }
+        return new Edges(sortedSources, sortedTargets);
+    }
+
+    // --- Writes ---
+
+    /**
+     * With {@code labels} classes, features are the centroid of the node's
+     * class plus unit Gaussian noise, so the classes can be learned.
+     *
+     * @return internal node ids by node index, kept as longs rather than element
+     *         ids to stay compact for large graphs
+     */
+    @SuppressWarnings("removal")
+    private long[] writeNodes(ExecutorService executor) {
+        int n = config.nodes().intValue();
+        int dim = config.featureDim().intValue();
+        int classes = config.labels().intValue();
+        Random centroidRandom = new Random(config.seed());
+        float[][] centroids = new float[classes][dim];
+        for (float[] centroid : centroids) {
+            for (int d = 0; d < dim; d++) {
+                centroid[d] = (float) centroidRandom.nextGaussian();
+            }
+        }
+
+        Label label = Label.label(config.nodeLabel());
+        long[] ids = new long[n];
+        int chunkSize = config.writeBatchSize().intValue();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < n; from += chunkSize) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(n, from + chunkSize);
+            futures.add(executor.submit(() -> {
+                SplittableRandom random = random(-1 - chunkFrom / chunkSize);
+                try (Transaction tx = db.beginTx()) {
+                    for (int i = chunkFrom; i < chunkTo; i++) {
+                        Node node = tx.createNode(label);
+                        if (dim > 0) {
+                            int y = classes > 0 ? random.nextInt(classes) : -1;
+                            float[] features = new float[dim];
+                            for (int d = 0; d < dim; d++) {
+                                features[d] = (y < 0 ? 0f : centroids[y][d]) + (float) random.nextGaussian();
+                            }
+                            node.setProperty(config.featureProperty(), features);
+                            if (y >= 0) {
+                                node.setProperty(config.classProperty(), (long) y);
+                            }
+                        } else if (classes > 0) {
+                            node.setProperty(config.classProperty(), (long) random.nextInt(classes));
+                        }
+                        ids[i] = node.getId();
+                    }
+                    tx.commit();
+                }
+            }));
+        }
+        await(futures, "write nodes");
+        return ids;
+    }
+
+    @SuppressWarnings("removal")
+    private void writeRelationships(ExecutorService executor, Edges edges, long[] ids) {
+        RelationshipType type = RelationshipType.withName(config.relationshipType());
+        int m = edges.sources().length;
+        int chunkSize = config.writeBatchSize().intValue();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < m; from += chunkSize) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(m, from + chunkSize);
+            futures.add(executor.submit(() -> {
+                for (int attempt = 1;; attempt++) {
+                    try (Transaction tx = db.beginTx()) {
+                        Node source = null;
+                        for (int e = chunkFrom; e < chunkTo; e++) {
+                            if (source == null || e == chunkFrom || edges.sources()[e] != edges.sources()[e - 1]) {
+                                source = tx.getNodeById(ids[edges.sources()[e]]);
+                            }
+                            source.createRelationshipTo(tx.getNodeById(ids[edges.targets()[e]]), type);
+                        }
+                        tx.commit();
+                        return null;
+                    } catch (TransientFailureException e) {
+                        if (attempt == MAX_ATTEMPTS) {
+                            throw e;
+                        }
+                        Thread.sleep(10L * attempt);
+                    }
+                }
+            }));
+        }
+        await(futures, "write relationships");
+    }
+
+    private static void await(List<Future<?>> futures, String what) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to " + what, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to " + what, e.getCause());
+        }
+    }
+}
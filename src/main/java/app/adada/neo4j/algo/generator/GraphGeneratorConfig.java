@@ -0,0 +1,63 @@
+package app.adada.neo4j.algo.generator;
+
+import java.util.Map;
+import java.util.Random;
+
+import app.adada.neo4j.util.TypeParser;
+
+public record GraphGeneratorConfig(
+        Long nodes,
+        Double avgDegree,
+        String model,
+        Long featureDim,
+        Long labels,
+        Long seed,
+        String nodeLabel,
+        String relationshipType,
+        String featureProperty,
+        String classProperty,
+        Long writeConcurrency,
+        Long writeBatchSize) {
+
+    public GraphGeneratorConfig {
+        if (nodes < 2 || nodes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("`nodes` must be between 2 and " + Integer.MAX_VALUE);
+        }
+        if (avgDegree <= 0 || nodes * avgDegree > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("`avgDegree` must be positive and `nodes * avgDegree` below "
+                    + Integer.MAX_VALUE);
+        }
+        if (featureDim < 0 || labels < 0) {
+            throw new IllegalArgumentException("`featureDim` and `labels` must not be negative");
+        }
+        if (writeConcurrency <= 0 || writeBatchSize <= 0) {
+            throw new IllegalArgumentException("`writeConcurrency` and `writeBatchSize` must be positive");
+        }
+        GraphModel.parse(model);
+    }
+
+    public static GraphGeneratorConfig fromMap(Map<String, Object> config) {
+        return new GraphGeneratorConfig(
+                TypeParser.parse(config.get("nodes"), Long.class, 10000L),
+                TypeParser.parse(config.get("avgDegree"), Number.class, 10L).doubleValue(),
+                TypeParser.parse(config.get("model"), String.class, "er"),
+                TypeParser.parse(config.get("featureDim"), Long.class, 64L),
+                TypeParser.parse(config.get("labels"), Long.class, 0L),
+                TypeParser.parse(config.get("seed"), Long.class, new Random().nextLong()),
+                TypeParser.parse(config.get("nodeLabel"), String.class, "Node"),
+                TypeParser.parse(config.get("relationshipType"), String.class, "LINKS"),
+                TypeParser.parse(config.get("featureProperty"), String.class, "features"),
+                TypeParser.parse(config.get("classProperty"), String.class, "y"),
+                TypeParser.parse(config.get("writeConcurrency"), Long.class,
+                        (long) Runtime.getRuntime().availableProcessors()),
+                TypeParser.parse(config.get("writeBatchSize"), Long.class, 10000L));
+    }
+
+    /**
+     * Number of directed relationships: {@code avgDegree} is the average
+     * out-degree, so the average total degree is twice as high.
+     */
+    public long relationships() {
+        return Math.round(nodes * avgDegree);
+    }
+}
@@ -0,0 +1,26 @@
+package app.adada.neo4j.algo.generator;
+
+/**
+ * Random graph models of {@link GraphGenerator}.
+ */
+public enum GraphModel {
+    /** Erdős–Rényi G(n, m): both endpoints uniform, Poisson degrees. */
+    ER,
+    /** Barabási–Albert preferential attachment: new nodes link to old hubs. */
+    BA,
+    /** Recursive matrix (Graph500 parameters): skewed degrees and communities. */
+    RMAT;
+
+    public static GraphModel parse(String name) {
+        switch (name.toLowerCase()) {
+            case "er":
+                return ER;
+            case "ba":
+                return BA;
+            case "rmat":
+                return RMAT;
+            default:
+                throw new IllegalArgumentException("Unsupported graph model: " + name + ", expected er, ba or rmat");
+        }
+    }
+}
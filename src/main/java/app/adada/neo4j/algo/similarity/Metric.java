@@ -0,0 +1,23 @@
+package app.adada.neo4j.algo.similarity;
+
+/**
+ * Vector comparison metrics. Cosine and dot scores rank descending, L2
+ * distances ascending.
+ */
+public enum Metric {
+    COSINE, DOT, L2;
+
+    public static Metric parse(String name) {
+        switch (name.toLowerCase()) {
+            case "cosine":
+                return COSINE;
+            case "dot":
+                return DOT;
+            case "l2":
+            case "euclidean":
+                return L2;
+            default:
+                throw new IllegalArgumentException("Unsupported similarity metric: " + name);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package app.adada.neo4j.algo.similarity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Exact top-k search over the rows of a flat {@code [count, dim]} array.
+ *
+ * <p>
+ * Rows are split into one contiguous partition per thread; each partition
+ * keeps a bounded heap of its best {@code k} rows, and the partition heaps are
+ * merged at the end.
+ */
+public class TopK {
+
+    public record Match(int row, float score) {
+    }
+
+    private final VectorKernel kernel;
+    private final Metric metric;
+
+    public TopK(VectorKernel kernel, Metric metric) {
+        this.kernel = kernel;
+        this.metric = metric;
+    }
+
+    /**
+     * @param query       the query vector of length {@code dim}
+     * @param data        the candidate rows
+     * @param count       the number of rows in {@code data}
+     * @param dim         the row length
+     * @param k           the number of matches
+     * @param concurrency the number of partitions scored in parallel
+     * @return the best matches, best first
+     */
+    public List<Match> select(float[] query, float[] data, int count, int dim, int k, int concurrency) {
+        if (k <= 0 || count == 0) {
+            return List.of();
+        }
+        float queryNorm = (float) Math.sqrt(kernel.dot(query, 0, query, 0, dim));
+        int partitions = Math.max(1, Math.min(concurrency, count / Math.max(k, 1024)));
+        int partitionSize = (count + partitions - 1) / partitions;
+
+        List<Heap> heaps = IntStream.range(0, partitions).parallel()
+                .mapToObj(p -> {
+                    Heap heap = new Heap(k);
+                    int end = Math.min(count, (p + 1) * partitionSize);
+                    for (int row = p * partitionSize; row < end; row++) {
+                        heap.offer(row, rank(query, queryNorm, data, row * dim, dim));
+                    }
+                    return heap;
+                })
+                .toList();
+
+        Heap merged = new Heap(k);
+        for (Heap heap : heaps) {
+            for (int i = 0; i < heap.size; i++) {
+                merged.offer(heap.rows[i], heap.ranks[i]);
+            }
+        }
+        List<Match> matches = new ArrayList<>(merged.size);
+        while (merged.size > 0) {
+            int row = merged.rows[0];
+            float rank = merged.ranks[0];
+            merged.pop();
+            matches.add(new Match(row, metric == Metric.L2 ? -rank : rank));
+        }
+        return matches.reversed();
+    }
+
+    /** Score where higher is better. */
+    private float rank(float[] query, float queryNorm, float[] data, int offset, int dim) {
+        switch (metric) {
+            case DOT:
+                return kernel.dot(query, 0, data, offset, dim);
+            case L2:
+                return -(float) Math.sqrt(kernel.squaredDistance(query, 0, data, offset, dim));
+            default:
+                float norm = (float) Math.sqrt(kernel.dot(data, offset, data, offset, dim));
+                return norm == 0f || queryNorm == 0f ? 0f
+                        : kernel.dot(query, 0, data, offset, dim) / (queryNorm * norm);
+        }
+    }
+
+    /** Min-heap of at most {@code capacity} (rank, row) pairs. */
+    private static final class Heap {
+        private final int[] rows;
+        private final float[] ranks;
+        private final int capacity;
+        private int size;
+
+        Heap(int capacity) {
+            this.capacity = capacity;
+            this.rows = new int[capacity];
+            this.ranks = new float[capacity];
+        }
+
+        void offer(int row, float rank) {
+            if (size < capacity) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (ranks[parent] <= rank) {
+                        break;
+                    }
+                    rows[i] = rows[parent];
+                    ranks[i] = ranks[parent];
+                    i = parent;
+                }
+                rows[i] = row;
+                ranks[i] = rank;
+            } else if (rank > ranks[0]) {
+                siftDown(row, rank);
+            }
+        }
+
+        void pop() {
+            size--;
+            if (size > 0) {
+                siftDown(rows[size], ranks[size]);
+            }
+        }
+
+        private void siftDown(int row, float rank) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && ranks[child + 1] < ranks[child]) {
+                    child++;
+                }
+                if (rank <= ranks[child]) {
+                    break;
+                }
+                rows[i] = rows[child];
+                ranks[i] = ranks[child];
+                i = child;
+            }
+            rows[i] = row;
+            ranks[i] = rank;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package app.adada.neo4j.algo.similarity;
+
+/**
+ * Dense float kernels over rows of a flat {@code [n, dim]} array.
+ */
+public interface VectorKernel {
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    float squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * The Vector API kernel if {@code jdk.incubator.vector} is available, e.g.
+     * with {@code --add-modules jdk.incubator.vector}, the scalar one otherwise.
+     */
+    static VectorKernel best() {
+        return Holder.BEST;
+    }
+
+    final class Holder {
+        private static final VectorKernel BEST = load();
+
+        private Holder() {
+        }
+
+        private static VectorKernel load() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                try {
+                    return new SimdKernel();
+                } catch (LinkageError e) {
+                    System.err.printf("Vector API unavailable, using scalar kernels: %s%n", e.getMessage());
+                }
+            }
+            return new ScalarKernel();
+        }
+    }
+}
@@ -15,6 +15,9 @@ public class PluginSettings {
     public String modelHome;
     public String builderHome;
     public String pyInterpreter;
+    public int predictorPoolSize;
+    public long predictorIdleSeconds;
+    public int keepVersions;
 
     private PluginSettings() {
         engineName = System.getenv("NEOTORCH_ENGINE_NAME");
@@ -56,10 +59,29 @@ public class PluginSettings {
         if (pyInterpreter == null) {
             pyInterpreter = neotorchHome + "/.venv/bin/python";
         }
+
+        String poolSize = System.getenv("NEOTORCH_PREDICTOR_POOL_SIZE");
+        predictorPoolSize = poolSize == null ? Runtime.getRuntime().availableProcessors()
+                : Integer.parseInt(poolSize);
+
+        String idleSeconds = System.getenv("NEOTORCH_PREDICTOR_IDLE_SECONDS");
+        predictorIdleSeconds = idleSeconds == null ? 300 : Long.parseLong(idleSeconds);
+
+        String versions = System.getenv("NEOTORCH_KEEP_VERSIONS");
+        keepVersions = versions == null ? 2 : Integer.parseInt(versions);
+    }
+
+    /**
+     * Returns the Python interpreter used by the model builders.
+     * Checked lazily, so models built with {@code builder: "java"} do not need
+     * the virtual environment at all.
+     */
+    public String pyInterpreter() {
         File interpreterFile = new File(pyInterpreter);
         if (!interpreterFile.exists() || !interpreterFile.canExecute()) {
             throw new IllegalStateException("Python interpreter not found or not executable: " + pyInterpreter);
         }
+        return pyInterpreter;
     }
 
     public static synchronized PluginSettings getInstance() {
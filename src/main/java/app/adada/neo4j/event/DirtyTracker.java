@@ -0,0 +1,160 @@
+package app.adada.neo4j.event;
+
+import app.adada.neo4j.config.PluginSettings;
+import app.adada.neo4j.gnn.graphsage.GraphSageModelConfig;
+import app.adada.neo4j.util.LongBitSet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Per-model set of nodes whose changes may have made embeddings stale.
+ *
+ * <p>
+ * Only changes relevant to the model are recorded: feature property updates,
+ * node creation, deletion and relabeling, and relationships of the model's
+ * types (both endpoints). The nodes within {@code sampleSizes.size()} hops
+ * that depend on them are resolved when the model is refreshed. Refresh and
+ * continual training consume the changes independently, each through its own
+ * {@link Channel}. Tracking is in memory, separate for every database, and
+ * starts when the database starts.
+ */
+public class DirtyTracker {
+
+    public enum Channel {
+        /** Nodes to re-embed, see {@code neotorch.graphsage.refresh}. */
+        REFRESH,
+        /** Nodes to train on, see {@code neotorch.graphsage.trainContinual}. */
+        TRAINING
+    }
+
+    /** Trackers by database name and model name. */
+    private static final Map<String, Map<String, DirtyTracker>> TRACKERS = new ConcurrentHashMap<>();
+
+    private final Set<String> featureProperties;
+    private final Set<String> relationshipTypes;
+    private final boolean anyRelationshipType;
+    private final LongBitSet[] dirty = { new LongBitSet(), new LongBitSet() };
+
+    private DirtyTracker(GraphSageModelConfig config) {
+        this.featureProperties = new HashSet<>(config.featureProperties());
+        this.relationshipTypes = new HashSet<>(config.relationshipTypes());
+        this.anyRelationshipType = relationshipTypes.contains("*");
+    }
+
+    /**
+     * Starts tracking changes for a model in every started database, as models
+     * in the model home are shared by the databases.
+     */
+    public static void register(String modelName, GraphSageModelConfig config) {
+        for (Map<String, DirtyTracker> trackers : TRACKERS.values()) {
+            trackers.put(modelName, new DirtyTracker(config));
+        }
+    }
+
+    public static void unregister(String modelName) {
+        for (Map<String, DirtyTracker> trackers : TRACKERS.values()) {
+            trackers.remove(modelName);
+        }
+    }
+
+    public static DirtyTracker forModel(String databaseName, String modelName) {
+        DirtyTracker tracker = TRACKERS.getOrDefault(databaseName, Map.of()).get(modelName);
+        if (tracker == null) {
+            throw new IllegalStateException(
+                    "Changes are not tracked for model " + modelName + " in database " + databaseName);
+        }
+        return tracker;
+    }
+
+    static boolean hasModels(String databaseName) {
+        return !TRACKERS.getOrDefault(databaseName, Map.of()).isEmpty();
+    }
+
+    /**
+     * Starts tracking a database and registers every model found in the model
+     * home that is not tracked in it yet.
+     */
+    static void start(String databaseName) {
+        Map<String, DirtyTracker> trackers = TRACKERS.computeIfAbsent(databaseName,
+                name -> new ConcurrentHashMap<>());
+        Path modelHome = Path.of(PluginSettings.getInstance().modelHome);
+        try (Stream<Path> dirs = Files.list(modelHome)) {
+            dirs.filter(dir -> Files.isRegularFile(dir.resolve("config.json"))).forEach(dir -> {
+                try {
+                    trackers.computeIfAbsent(dir.getFileName().toString(), name -> new DirtyTracker(
+                            GraphSageModelConfig.fromJson(readString(dir.resolve("config.json")))));
+                } catch (RuntimeException e) {
+                    System.err.printf("Not tracking changes for model '%s': %s%n", dir.getFileName(),
+                            e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.printf("Failed to list models in '%s': %s%n", modelHome, e.getMessage());
+        }
+    }
+
+    static void stop(String databaseName) {
+        TRACKERS.remove(databaseName);
+    }
+
+    private static String readString(Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + file, e);
+        }
+    }
+
+    static void recordAll(String databaseName, GraphChanges changes) {
+        for (DirtyTracker tracker : TRACKERS.getOrDefault(databaseName, Map.of()).values()) {
+            tracker.record(changes);
+        }
+    }
+
+    synchronized void record(GraphChanges changes) {
+        for (LongBitSet nodes : dirty) {
+            for (int i = 0; i < changes.nodeCount; i++) {
+                nodes.set(changes.nodes[i]);
+            }
+            for (int i = 0; i < changes.propertyCount; i++) {
+                if (featureProperties.contains(changes.keys[i])) {
+                    nodes.set(changes.propertyNodes[i]);
+                }
+            }
+            for (int i = 0; i < changes.relationshipCount; i++) {
+                if (anyRelationshipType || relationshipTypes.contains(changes.types[i])) {
+                    nodes.set(changes.starts[i]);
+                    nodes.set(changes.ends[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the changed nodes recorded so far for {@code channel} and starts a
+     * new set.
+     */
+    public synchronized LongBitSet drain(Channel channel) {
+        LongBitSet drained = dirty[channel.ordinal()];
+        dirty[channel.ordinal()] = new LongBitSet();
+        return drained;
+    }
+
+    /**
+     * Puts back nodes taken by {@link #drain(Channel)}, e.g. after a failure.
+     */
+    public synchronized void restore(Channel channel, LongBitSet nodes) {
+        dirty[channel.ordinal()].or(nodes);
+    }
+
+    public synchronized long size(Channel channel) {
+        return dirty[channel.ordinal()].cardinality();
+    }
+}
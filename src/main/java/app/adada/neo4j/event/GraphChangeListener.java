@@ -0,0 +1,64 @@
+package app.adada.neo4j.event;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+
+/**
+ * Forwards the changes of every committed transaction to the
+ * {@link DirtyTracker}s of the models.
+ */
+public class GraphChangeListener implements TransactionEventListener<GraphChanges> {
+
+    @Override
+    @SuppressWarnings("removal")
+    public GraphChanges beforeCommit(TransactionData data, Transaction transaction,
+            GraphDatabaseService databaseService) {
+        if (!DirtyTracker.hasModels(databaseService.databaseName())) {
+            return null;
+        }
+        GraphChanges changes = new GraphChanges();
+        for (Node node : data.createdNodes()) {
+            changes.addNode(node.getId());
+        }
+        for (Node node : data.deletedNodes()) {
+            changes.addNode(node.getId());
+        }
+        for (LabelEntry entry : data.assignedLabels()) {
+            changes.addNode(entry.node().getId());
+        }
+        for (LabelEntry entry : data.removedLabels()) {
+            changes.addNode(entry.node().getId());
+        }
+        for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+            changes.addProperty(entry.entity().getId(), entry.key());
+        }
+        for (PropertyEntry<Node> entry : data.removedNodeProperties()) {
+            changes.addProperty(entry.entity().getId(), entry.key());
+        }
+        for (Relationship rel : data.createdRelationships()) {
+            changes.addRelationship(rel.getStartNode().getId(), rel.getEndNode().getId(), rel.getType().name());
+        }
+        for (Relationship rel : data.deletedRelationships()) {
+            changes.addRelationship(rel.getStartNode().getId(), rel.getEndNode().getId(), rel.getType().name());
+        }
+        return changes.isEmpty() ? null : changes;
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, GraphChanges changes, GraphDatabaseService databaseService) {
+        if (changes != null) {
+            DirtyTracker.recordAll(databaseService.databaseName(), changes);
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionData data, GraphChanges changes, GraphDatabaseService databaseService) {
+        // nothing was changed
+    }
+}
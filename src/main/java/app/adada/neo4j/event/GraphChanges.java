@@ -0,0 +1,56 @@
+package app.adada.neo4j.event;
+
+import java.util.Arrays;
+
+/**
+ * Node and relationship ids touched by one committed transaction, captured
+ * before commit while deleted entities are still readable.
+ */
+public class GraphChanges {
+
+    /** Nodes created, deleted or relabeled; relevant to every model. */
+    long[] nodes = new long[16];
+    int nodeCount;
+
+    /** Nodes with an assigned or removed property, parallel to {@link #keys}. */
+    long[] propertyNodes = new long[16];
+    String[] keys = new String[16];
+    int propertyCount;
+
+    /** Created or deleted relationships, parallel arrays. */
+    long[] starts = new long[16];
+    long[] ends = new long[16];
+    String[] types = new String[16];
+    int relationshipCount;
+
+    void addNode(long nodeId) {
+        if (nodeCount == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodeCount * 2);
+        }
+        nodes[nodeCount++] = nodeId;
+    }
+
+    void addProperty(long nodeId, String key) {
+        if (propertyCount == propertyNodes.length) {
+            propertyNodes = Arrays.copyOf(propertyNodes, propertyCount * 2);
+            keys = Arrays.copyOf(keys, propertyCount * 2);
+        }
+        propertyNodes[propertyCount] = nodeId;
+        keys[propertyCount++] = key;
+    }
+
+    void addRelationship(long start, long end, String type) {
+        if (relationshipCount == starts.length) {
+            starts = Arrays.copyOf(starts, relationshipCount * 2);
+            ends = Arrays.copyOf(ends, relationshipCount * 2);
+            types = Arrays.copyOf(types, relationshipCount * 2);
+        }
+        starts[relationshipCount] = start;
+        ends[relationshipCount] = end;
+        types[relationshipCount++] = type;
+    }
+
+    boolean isEmpty() {
+        return nodeCount == 0 && propertyCount == 0 && relationshipCount == 0;
+    }
+}
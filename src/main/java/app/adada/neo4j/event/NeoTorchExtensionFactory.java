@@ -0,0 +1,56 @@
+package app.adada.neo4j.event;
+
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.kernel.extension.ExtensionFactory;
+import org.neo4j.kernel.extension.ExtensionType;
+import org.neo4j.kernel.extension.context.ExtensionContext;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+import app.adada.neo4j.gnn.inference.InferenceDispatcher;
+
+/**
+ * Registers the {@link GraphChangeListener} on every user database, and stops
+ * the inference dispatchers of a database when it stops.
+ */
+public class NeoTorchExtensionFactory extends ExtensionFactory<NeoTorchExtensionFactory.Dependencies> {
+
+    public interface Dependencies {
+        GraphDatabaseAPI graphDatabaseAPI();
+
+        DatabaseManagementService databaseManagementService();
+    }
+
+    public NeoTorchExtensionFactory() {
+        super(ExtensionType.DATABASE, "neotorch");
+    }
+
+    @Override
+    public Lifecycle newInstance(ExtensionContext context, Dependencies dependencies) {
+        String databaseName = dependencies.graphDatabaseAPI().databaseName();
+        DatabaseManagementService managementService = dependencies.databaseManagementService();
+        GraphChangeListener listener = new GraphChangeListener();
+
+        return new LifecycleAdapter() {
+            @Override
+            public void start() {
+                if ("system".equals(databaseName)) {
+                    return;
+                }
+                DirtyTracker.start(databaseName);
+                managementService.registerTransactionEventListener(databaseName, listener);
+            }
+
+            @Override
+            public void stop() {
+                if ("system".equals(databaseName)) {
+                    return;
+                }
+                managementService.unregisterTransactionEventListener(databaseName, listener);
+                DirtyTracker.stop(databaseName);
+                InferenceDispatcher.closeDatabase(databaseName);
+            }
+        };
+    }
+}
@@ -6,6 +6,8 @@ import org.neo4j.graphdb.Node;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import ai.djl.training.dataset.Dataset;
@@ -31,6 +33,10 @@ public abstract class GnnModel {
      */
     public abstract String getModelType();
 
+    public String getModelName() {
+        return modelName;
+    }
+
     // --- Result Inner Classes ---
     // These classes define the structure of results returned by model operations.
 
@@ -102,7 +108,15 @@ public abstract class GnnModel {
      * @return A stream of Prediction objects containing node IDs and their
      *         corresponding prediction values.
      */
-    public abstract void infer(Iterable<Node> nodes, Object predictConfig);
+    public abstract Stream<Prediction> infer(List<Node> nodes, Object predictConfig);
+
+    /**
+     * Parses the stored JSON configuration into the model's configuration type.
+     *
+     * @param json the JSON string read from the configuration file
+     * @return the model configuration
+     */
+    protected abstract GnnModelConfig parseModelConfig(String json);
 
     // --- Helper Methods for Model Persistence (Conceptual) ---
 
@@ -148,7 +162,7 @@ public abstract class GnnModel {
         }
         try {
             String json = Files.readString(Path.of(filePath));
-            return GnnModelConfig.fromJson(json);
+            return parseModelConfig(json);
         } catch (IOException e) {
             System.err.printf("Error reading configuration file '%s': %s%n", filePath, e.getMessage());
             throw new RuntimeException("Error reading configuration file " + filePath, e);
@@ -38,4 +38,12 @@ public interface GnnModelConfig {
     List<String> nodeLabels();
 
     List<Long> sampleSizes();
+
+    /** Maximum nodes of a sampled subgraph, or 0 for no cap. */
+    Long maxSampledNodes();
+
+    /** Maximum edges of a sampled subgraph, or 0 for no cap. */
+    Long maxSampledEdges();
+
+    String classProperties();
 }
@@ -0,0 +1,235 @@
+package app.adada.neo4j.gnn;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Versioned parameter directories of a model.
+ *
+ * <pre>
+ * &lt;model&gt;/
+ *   config.json, &lt;model&gt;.pt   architecture, shared by all versions
+ *   v1/, v2/, ...              trained parameters and artifacts derived from them
+ *   current                    name of the published version, e.g. "v2"
+ * </pre>
+ *
+ * Training writes into a staging directory that is renamed to the next
+ * {@code v<N>} and then published by atomically replacing {@code current}.
+ * Readers resolve {@code current} once and keep using that directory, so a
+ * publish never changes the files under a running call. A reader pins its
+ * version for the duration of the call; a publish deletes only versions beyond
+ * {@code keep} that are not pinned, and leaves pinned ones to a later publish.
+ * Models trained before versioning keep their parameters in the model
+ * directory, which is read as version 0.
+ */
+public final class ModelVersions {
+
+    public static final String CURRENT = "current";
+    private static final String STAGING_PREFIX = ".staging-";
+
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+    /** Pin counts by version directory, guarded by the lock of the model directory. */
+    private static final Map<Path, Integer> PINS = new HashMap<>();
+
+    /**
+     * Keeps a version directory from being deleted by a publish until closed.
+     */
+    public static final class Pin implements AutoCloseable {
+        private final Path modelDir;
+        private final Path versionDir;
+        private final int version;
+        private boolean closed;
+
+        private Pin(Path modelDir, int version) {
+            this.modelDir = modelDir;
+            this.versionDir = version < 0 ? null : key(resolve(modelDir, version));
+            this.version = version;
+        }
+
+        public int version() {
+            return version;
+        }
+
+        @Override
+        public void close() {
+            synchronized (lock(modelDir)) {
+                if (!closed && versionDir != null) {
+                    PINS.computeIfPresent(versionDir, (dir, count) -> count == 1 ? null : count - 1);
+                }
+                closed = true;
+            }
+        }
+    }
+
+    private ModelVersions() {
+    }
+
+    /**
+     * @return the published version, 0 for an unversioned trained model, or -1
+     *         if the model has not been trained
+     */
+    public static int current(Path modelDir, String modelName) {
+        try {
+            String name = Files.readString(modelDir.resolve(CURRENT), StandardCharsets.UTF_8).trim();
+            return parse(name);
+        } catch (NoSuchFileException e) {
+            return hasParameters(modelDir, modelName) ? 0 : -1;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read current version of model directory: " + modelDir, e);
+        }
+    }
+
+    /**
+     * Pins the published version, read and pinned atomically with respect to
+     * {@link #publish(Path, Path, int)}.
+     *
+     * @return a pin of the current version, or of -1 if the model has not been
+     *         trained
+     */
+    public static Pin pinCurrent(Path modelDir, String modelName) {
+        synchronized (lock(modelDir)) {
+            return pinLocked(modelDir, current(modelDir, modelName));
+        }
+    }
+
+    /**
+     * Pins a version a reader resolved earlier.
+     *
+     * @throws IllegalStateException if the version has been deleted
+     */
+    public static Pin pin(Path modelDir, int version) {
+        synchronized (lock(modelDir)) {
+            if (version > 0 && !Files.isDirectory(resolve(modelDir, version))) {
+                throw new IllegalStateException("Version " + version + " of " + modelDir + " has been deleted");
+            }
+            return pinLocked(modelDir, version);
+        }
+    }
+
+    private static Pin pinLocked(Path modelDir, int version) {
+        Pin pin = new Pin(modelDir, version);
+        if (pin.versionDir != null) {
+            PINS.merge(pin.versionDir, 1, Integer::sum);
+        }
+        return pin;
+    }
+
+    public static Path resolve(Path modelDir, int version) {
+        return version == 0 ? modelDir : modelDir.resolve("v" + version);
+    }
+
+    /**
+     * All version directories, oldest first.
+     */
+    public static List<Integer> list(Path modelDir) {
+        try (Stream<Path> files = Files.list(modelDir)) {
+            return files.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.matches("v\\d+"))
+                    .map(ModelVersions::parse)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list model directory: " + modelDir, e);
+        }
+    }
+
+    /**
+     * Creates an empty directory to train the next version into.
+     */
+    public static Path stage(Path modelDir) {
+        try {
+            return Files.createTempDirectory(modelDir, STAGING_PREFIX);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create staging directory in: " + modelDir, e);
+        }
+    }
+
+    /**
+     * Renames {@code staging} to the next version, makes it current and
+     * deletes all but the {@code keep} newest versions, except pinned ones.
+     *
+     * @return the published version
+     */
+    public static int publish(Path modelDir, Path staging, int keep) {
+        synchronized (lock(modelDir)) {
+            List<Integer> versions = list(modelDir);
+            int version = versions.isEmpty() ? 1 : versions.get(versions.size() - 1) + 1;
+            try {
+                Files.move(staging, resolve(modelDir, version), StandardCopyOption.ATOMIC_MOVE);
+                Path pointer = modelDir.resolve(CURRENT + ".tmp");
+                Files.writeString(pointer, "v" + version, StandardCharsets.UTF_8);
+                Files.move(pointer, modelDir.resolve(CURRENT), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to publish version " + version + " of: " + modelDir, e);
+            }
+            System.out.printf("Published %s version %d%n", modelDir.getFileName(), version);
+
+            List<Integer> retired = list(modelDir);
+            for (int old : retired.subList(0, Math.max(0, retired.size() - Math.max(1, keep)))) {
+                if (PINS.containsKey(key(resolve(modelDir, old)))) {
+                    System.out.printf("Keeping %s version %d while it is in use%n", modelDir.getFileName(), old);
+                    continue;
+                }
+                delete(resolve(modelDir, old));
+            }
+            return version;
+        }
+    }
+
+    /**
+     * Deletes a directory tree, e.g. a failed staging directory.
+     */
+    public static void delete(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()) // Delete files before directories
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            throw new RuntimeException("Failed to delete path: " + path, e);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to delete directory: " + dir, e);
+        }
+    }
+
+    private static int parse(String name) {
+        if (!name.matches("v\\d+")) {
+            throw new IllegalStateException("Invalid model version: " + name);
+        }
+        return Integer.parseInt(name.substring(1));
+    }
+
+    private static boolean hasParameters(Path modelDir, String modelName) {
+        try (Stream<Path> files = Files.list(modelDir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .anyMatch(file -> file.startsWith(modelName + "-") && file.endsWith(".params"));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list model directory: " + modelDir, e);
+        }
+    }
+
+    private static Object lock(Path modelDir) {
+        return LOCKS.computeIfAbsent(key(modelDir), dir -> new Object());
+    }
+
+    private static Path key(Path dir) {
+        return dir.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,191 @@
+package app.adada.neo4j.gnn.dataset;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+
+import ai.djl.training.dataset.RandomAccessDataset;
+import ai.djl.training.dataset.Sampler;
+import app.adada.neo4j.gnn.GnnModelConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Batch sampler that gives every batch about the same sampling cost, so no
+ * batch of several hub seeds stalls the trainer.
+ *
+ * <p>
+ * The cost of a seed is its expected subgraph size: its capped in-degree for
+ * the first hop, times the mean capped degree of the later hops, from degrees
+ * read once. Each epoch the seeds are taken by jittered cost, heaviest first,
+ * and each goes to the lightest batch that still has room; batch sizes differ
+ * by at most one and the batches are yielded in random order, so composition
+ * still changes every epoch.
+ */
+public class CostBalancedSampler implements Sampler {
+
+    /** Relative noise on the costs when ordering the seeds of an epoch. */
+    private static final double JITTER = 0.2;
+
+    private final double[] costs;
+    private final int batchSize;
+    private final Random random;
+    private Map<String, Object> report;
+
+    /**
+     * @param costs     the expansion cost of every dataset node
+     * @param batchSize the target number of seeds per batch
+     * @param seed      the random seed
+     */
+    public CostBalancedSampler(double[] costs, int batchSize, long seed) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("`batchSize` must be positive");
+        }
+        this.costs = costs;
+        this.batchSize = batchSize;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Expected number of sampled nodes per seed for the model's fanouts and
+     * relationship types.
+     */
+    public static double[] expansionCosts(List<Node> nodes, GnnModelConfig config) {
+        RelationshipType[] types = config.relationshipTypes().contains("*") ? null
+                : config.relationshipTypes().stream().map(RelationshipType::withName).toArray(RelationshipType[]::new);
+        int[] degrees = new int[nodes.size()];
+        for (int i = 0; i < degrees.length; i++) {
+            Node node = nodes.get(i);
+            if (types == null) {
+                degrees[i] = node.getDegree(Direction.INCOMING);
+            } else {
+                for (RelationshipType type : types) {
+                    degrees[i] += node.getDegree(type, Direction.INCOMING);
+                }
+            }
+        }
+
+        // Hop order, as in NeighborSampler
+        List<Long> fanouts = new ArrayList<>(config.sampleSizes());
+        Collections.reverse(fanouts);
+        // Expected nodes below one node sampled at hop h, from the last hop up
+        double below = 0;
+        for (int hop = fanouts.size() - 1; hop >= 1; hop--) {
+            long fanout = fanouts.get(hop);
+            double meanCapped = Arrays.stream(degrees).mapToLong(d -> Math.min(fanout, d)).average().orElse(0);
+            below = meanCapped * (1 + below);
+        }
+        double[] costs = new double[degrees.length];
+        long first = fanouts.isEmpty() ? 0 : fanouts.get(0);
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = 1 + Math.min(first, degrees[i]) * (1 + below);
+        }
+        return costs;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<List<Long>> sample(RandomAccessDataset dataset) {
+        int n = Math.toIntExact(dataset.size());
+        if (n != costs.length) {
+            throw new IllegalStateException("Dataset has " + n + " nodes but costs were computed for " + costs.length);
+        }
+        int batchCount = (n + batchSize - 1) / batchSize;
+        List<List<Long>> batches = new ArrayList<>(batchCount);
+        double[] totals = new double[batchCount];
+        PriorityQueue<Integer> lightest = new PriorityQueue<>(Math.max(1, batchCount),
+                Comparator.comparingDouble((Integer b) -> totals[b]));
+        for (int b = 0; b < batchCount; b++) {
+            batches.add(new ArrayList<>(batchSize));
+            lightest.add(b);
+        }
+
+        double[] jittered = new double[n];
+        List<Integer> order = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            jittered[i] = costs[i] * (1 + JITTER * (random.nextDouble() - 0.5));
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble((Integer i) -> jittered[i]).reversed());
+        int capacity = batchCount == 0 ? 0 : (n + batchCount - 1) / batchCount;
+        int fullBatches = n - (capacity - 1) * batchCount; // batches of size capacity, the rest one smaller
+        for (int i : order) {
+            int b = lightest.poll();
+            batches.get(b).add((long) i);
+            totals[b] += costs[i];
+            int room = (b < fullBatches ? capacity : capacity - 1) - batches.get(b).size();
+            if (room > 0) {
+                lightest.add(b);
+            }
+        }
+        Collections.shuffle(batches, random);
+
+        if (report == null) {
+            report = report(totals, n);
+        }
+        return batches.iterator();
+    }
+
+    /**
+     * Spread of the predicted batch costs of the first epoch, against the
+     * spread of the same number of uniformly shuffled batches of
+     * {@code batchSize}. Nothing here is measured; batch times are in the
+     * {@code batchSeconds} of the training profile.
+     */
+    private Map<String, Object> report(double[] balanced, int n) {
+        List<Integer> shuffled = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            shuffled.add(i);
+        }
+        Collections.shuffle(shuffled, new Random(random.nextLong()));
+        double[] uniform = new double[balanced.length];
+        for (int i = 0; i < n; i++) {
+            uniform[i / batchSize] += costs[shuffled.get(i)];
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("batches", balanced.length);
+        map.put("meanPredictedCost", Arrays.stream(balanced).average().orElse(0));
+        map.put("predictedUniformCv", coefficientOfVariation(uniform));
+        map.put("predictedBalancedCv", coefficientOfVariation(balanced));
+        map.put("predictedUniformMaxToMean", maxToMean(uniform));
+        map.put("predictedBalancedMaxToMean", maxToMean(balanced));
+        return map;
+    }
+
+    private static double coefficientOfVariation(double[] values) {
+        double mean = Arrays.stream(values).average().orElse(0);
+        if (mean == 0) {
+            return 0;
+        }
+        double variance = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).average().orElse(0);
+        return Math.sqrt(variance) / mean;
+    }
+
+    private static double maxToMean(double[] values) {
+        double mean = Arrays.stream(values).average().orElse(0);
+        return mean == 0 ? 0 : Arrays.stream(values).max().orElse(0) / mean;
+    }
+
+    /**
+     * @return the predicted batch cost spread of uniform and balanced batches,
+     *         or null before the first epoch
+     */
+    public Map<String, Object> report() {
+        return report;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -0,0 +1,112 @@
+package app.adada.neo4j.gnn.dataset;
+
+import ai.djl.training.dataset.RandomAccessDataset;
+import ai.djl.training.dataset.Sampler;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Batch sampler for continual training over a dataset whose first
+ * {@code deltaCount} nodes are new or changed and whose remaining nodes are a
+ * replay sample of the old graph.
+ *
+ * <p>
+ * Yields exactly {@code steps} batches; each draws {@code deltaFraction} of
+ * its nodes from the delta and the rest from the replay sample, uniformly
+ * without replacement within the batch, as the neighbor sampler needs distinct
+ * seeds. A range smaller than its share contributes all of its nodes and the
+ * other range fills the rest of the batch where it can.
+ */
+public class DeltaReplaySampler implements Sampler {
+
+    private final int deltaCount;
+    private final int batchSize;
+    private final int steps;
+    private final double deltaFraction;
+    private final Random random;
+
+    public DeltaReplaySampler(int deltaCount, int batchSize, int steps, double deltaFraction, long seed) {
+        if (deltaFraction < 0 || deltaFraction > 1) {
+            throw new IllegalArgumentException("`deltaFraction` must be in [0, 1]");
+        }
+        this.deltaCount = deltaCount;
+        this.batchSize = batchSize;
+        this.steps = steps;
+        this.deltaFraction = deltaFraction;
+        this.random = new Random(seed);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<List<Long>> sample(RandomAccessDataset dataset) {
+        int replayCount = Math.toIntExact(Math.max(0, dataset.size() - deltaCount));
+        int target;
+        if (replayCount == 0) {
+            target = batchSize;
+        } else if (deltaCount == 0) {
+            target = 0;
+        } else {
+            target = (int) Math.round(batchSize * deltaFraction);
+        }
+        int fromReplay = Math.min(batchSize - Math.min(target, deltaCount), replayCount);
+        int fromDelta = Math.min(batchSize - fromReplay, deltaCount);
+
+        // Permutations of both ranges; each batch shuffles only its prefix
+        int[] delta = identity(deltaCount);
+        int[] replay = identity(replayCount);
+        return new Iterator<>() {
+            private int step;
+
+            @Override
+            public boolean hasNext() {
+                return step < steps && dataset.size() > 0;
+            }
+
+            @Override
+            public List<Long> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                step++;
+                List<Long> batch = new ArrayList<>(fromDelta + fromReplay);
+                shufflePrefix(delta, fromDelta);
+                for (int i = 0; i < fromDelta; i++) {
+                    batch.add((long) delta[i]);
+                }
+                shufflePrefix(replay, fromReplay);
+                for (int i = 0; i < fromReplay; i++) {
+                    batch.add(deltaCount + (long) replay[i]);
+                }
+                return batch;
+            }
+        };
+    }
+
+    private static int[] identity(int size) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    /** Partial Fisher-Yates: the first {@code count} entries become a uniform sample. */
+    private void shufflePrefix(int[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(values.length - i);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -71,6 +71,10 @@ public abstract class GnnDataset extends RandomAccessDataset {
                 device);
     }
 
+    public Sampler getSampler() {
+        return sampler;
+    }
+
     public Record getBatch(NDManager manager, List<Long> indice) throws IOException {
         List<Node> batchNodes = new ArrayList<>(indice.size());
         for (Long id : indice) {
@@ -100,10 +104,7 @@ public abstract class GnnDataset extends RandomAccessDataset {
         }
 
         public GnnDataset build(boolean supervised) {
-            if (supervised) {
-                throw new UnsupportedOperationException("Supervised datasets are not supported yet.");
-            }
-            return new UnsupervisedDataset(this);
+            return supervised ? new SupervisedDataset(this) : new UnsupervisedDataset(this);
         }
 
         public Builder setTransaction(Transaction tx) {
@@ -0,0 +1,72 @@
+package app.adada.neo4j.gnn.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.graphdb.Node;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.training.dataset.Record;
+import app.adada.neo4j.algo.DenseGraph;
+import app.adada.neo4j.algo.NeighborSampler;
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.Stage;
+
+/**
+ * Node classification over sampled neighborhoods.
+ *
+ * <p>
+ * Class labels are read from {@code classProperties} once, into an array by
+ * node index, so batches only sample features. The batch nodes are the first
+ * rows of the sampled subgraph and the only ones labeled.
+ */
+public class SupervisedDataset extends GnnDataset {
+
+    private final long[] labels;
+
+    public SupervisedDataset(Builder builder) {
+        super(builder);
+        String classProperty = config.classProperties();
+        labels = new long[nodes.size()];
+        for (int i = 0; i < labels.length; i++) {
+            Node node = nodes.get(i);
+            if (!(node.getProperty(classProperty, null) instanceof Number label)) {
+                throw new IllegalArgumentException(
+                        "Node " + node.getElementId() + " has no numeric class property '" + classProperty + "'");
+            }
+            labels[i] = label.longValue();
+        }
+    }
+
+    @Override
+    public Record getBatch(NDManager manager, List<Long> indice) {
+        List<Node> batchNodes = new ArrayList<>(indice.size());
+        long[] batchLabels = new long[indice.size()];
+        for (int i = 0; i < batchLabels.length; i++) {
+            int index = indice.get(i).intValue();
+            batchNodes.add(nodes.get(index));
+            batchLabels[i] = labels[index];
+        }
+        Record record = sampleBatch(manager, batchNodes);
+        return new Record(record.getData(), new NDList(manager.create(batchLabels)));
+    }
+
+    @Override
+    protected Record sampleBatch(NDManager manager, List<Node> batchNodes) {
+        NeighborSampler neighborSampler = new NeighborSampler()
+                .withBudget(config.maxSampledNodes(), config.maxSampledEdges());
+        DenseGraph sampledData = neighborSampler.sample(batchNodes, config.featureProperties(),
+                config.nodeLabels(), config.relationshipTypes(), config.sampleSizes());
+
+        long start = System.nanoTime();
+        NDArray x = manager.create(sampledData.getFeatures());
+        NDArray edgeIndex = manager.create(sampledData.getEdges());
+        // Named for the leak report of the native memory tracker
+        x.setName("features");
+        edgeIndex.setName("edgeIndex");
+        MetricsRegistry.record(Stage.NDARRAY_CREATION, start, sampledData.byteSize());
+        return new Record(new NDList(x, edgeIndex), new NDList());
+    }
+}
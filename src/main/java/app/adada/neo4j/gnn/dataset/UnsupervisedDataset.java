@@ -13,6 +13,8 @@ import app.adada.neo4j.algo.BatchSampler;
 import app.adada.neo4j.algo.BatchSampler.ExtendedBatch;
 import app.adada.neo4j.algo.DenseGraph;
 import app.adada.neo4j.algo.NeighborSampler;
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.Stage;
 
 public class UnsupervisedDataset extends GnnDataset {
 
@@ -26,19 +28,27 @@ public class UnsupervisedDataset extends GnnDataset {
         ExtendedBatch extendedBatch = batchSampler.sampleBatch(batchNodes, config.nodeLabels(),
                 config.relationshipTypes(), 1);
 
-        NeighborSampler neighborSampler = new NeighborSampler();
+        NeighborSampler neighborSampler = new NeighborSampler()
+                .withBudget(config.maxSampledNodes(), config.maxSampledEdges());
         DenseGraph sampledData = neighborSampler.sample(extendedBatch.nodes, config.featureProperties(),
                 config.nodeLabels(),
                 config.relationshipTypes(), config.sampleSizes());
 
+        long start = System.nanoTime();
         NDArray x = manager.create(sampledData.getFeatures());
         NDArray edgeIndex = manager.create(sampledData.getEdges());
         NDArray posEdgeIndex = manager.create(extendedBatch.positiveEdges);
         NDArray negEdgeIndex = manager.create(extendedBatch.negativeEdges);
+        // Named for the leak report of the native memory tracker
+        x.setName("features");
+        edgeIndex.setName("edgeIndex");
+        posEdgeIndex.setName("positiveEdges");
+        negEdgeIndex.setName("negativeEdges");
         NDList data = new NDList(x, edgeIndex, posEdgeIndex, negEdgeIndex);
 
         NDArray zeroLabels = manager.zeros(new Shape(x.getShape().get(0)), x.getDataType());
         NDList labels = new NDList(zeroLabels);
+        MetricsRegistry.record(Stage.NDARRAY_CREATION, start, sampledData.byteSize());
 
         return new Record(data, labels);
     }
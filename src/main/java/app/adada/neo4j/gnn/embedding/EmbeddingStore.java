@@ -0,0 +1,360 @@
+package app.adada.neo4j.gnn.embedding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory-mapped store of fixed-width embedding rows addressed by internal node
+ * id, kept next to the model artifacts.
+ *
+ * <p>
+ * Layout: a {@value #HEADER_BYTES}-byte header followed by one row per node id.
+ * Every row starts with a float scale ({@code 0} marks an absent row) followed
+ * by {@code dim} values encoded as float32, float16 or int8 (value = q * scale).
+ * The header records the model parameters the rows were computed with, so a
+ * retrained model never serves stale rows.
+ */
+public class EmbeddingStore {
+
+    public static final String FILE_NAME = "embeddings.bin";
+
+    private static final long MAGIC = 0x4E54454D42303031L; // "NTEMB001"
+    private static final int HEADER_BYTES = 64;
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private static final Map<Path, EmbeddingStore> OPEN = new ConcurrentHashMap<>();
+
+    public enum Encoding {
+        FLOAT32(4), FLOAT16(2), INT8(1);
+
+        final int bytes;
+
+        Encoding(int bytes) {
+            this.bytes = bytes;
+        }
+
+        public static Encoding parse(String name) {
+            switch (name.toLowerCase()) {
+                case "float32":
+                case "fp32":
+                    return FLOAT32;
+                case "float16":
+                case "fp16":
+                    return FLOAT16;
+                case "int8":
+                    return INT8;
+                default:
+                    throw new IllegalArgumentException("Unsupported embedding encoding: " + name);
+            }
+        }
+    }
+
+    private final Path file;
+    private final long lastModified;
+    private final Encoding encoding;
+    private final int dim;
+    private final int rowBytes;
+    private final long rows;
+    private final long modelStamp;
+    private final int rowsPerSegment;
+    private final ByteBuffer[] segments;
+
+    private EmbeddingStore(Path file) throws IOException {
+        this.file = file;
+        this.lastModified = Files.getLastModifiedTime(file).toMillis();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException("Not an embedding store: " + file);
+            }
+            this.encoding = Encoding.values()[header.getInt(8)];
+            this.dim = header.getInt(12);
+            this.rowBytes = header.getInt(16);
+            this.rows = header.getLong(24);
+            this.modelStamp = header.getLong(32);
+            this.rowsPerSegment = (int) Math.max(1, MAX_SEGMENT_BYTES / rowBytes);
+            this.segments = map(channel, FileChannel.MapMode.READ_ONLY, rows, rowBytes, rowsPerSegment);
+        }
+    }
+
+    private static ByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long rows, int rowBytes,
+            int rowsPerSegment) throws IOException {
+        int numSegments = (int) ((rows + rowsPerSegment - 1) / rowsPerSegment);
+        ByteBuffer[] segments = new ByteBuffer[numSegments];
+        for (int s = 0; s < numSegments; s++) {
+            long first = (long) s * rowsPerSegment;
+            long count = Math.min(rowsPerSegment, rows - first);
+            MappedByteBuffer buffer = channel.map(mode, HEADER_BYTES + first * rowBytes, count * rowBytes);
+            segments[s] = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return segments;
+    }
+
+    /**
+     * Opens the store, reusing the mapping of a previous call unless the file
+     * has been replaced since.
+     */
+    public static EmbeddingStore open(Path file) {
+        try {
+            if (!Files.exists(file)) {
+                throw new IllegalStateException("Embedding store not found: " + file);
+            }
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            EmbeddingStore store = OPEN.get(file);
+            if (store == null || store.lastModified != modified) {
+                store = new EmbeddingStore(file);
+                OPEN.put(file, store);
+            }
+            return store;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open embedding store " + file, e);
+        }
+    }
+
+    /**
+     * Drops the cached mapping of a store, e.g. when its model is deleted.
+     */
+    public static void evict(Path file) {
+        OPEN.remove(file);
+    }
+
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    public int dim() {
+        return dim;
+    }
+
+    /** Exclusive upper bound of the node ids that can be stored. */
+    public long rows() {
+        return rows;
+    }
+
+    public long modelStamp() {
+        return modelStamp;
+    }
+
+    /** Changes whenever the store is rewritten. */
+    public long version() {
+        return lastModified;
+    }
+
+    public boolean contains(long nodeId) {
+        return nodeId >= 0 && nodeId < rows && scale(nodeId) != 0f;
+    }
+
+    private float scale(long nodeId) {
+        return segments[(int) (nodeId / rowsPerSegment)].getFloat(offset(nodeId));
+    }
+
+    private int offset(long nodeId) {
+        return (int) (nodeId % rowsPerSegment) * rowBytes;
+    }
+
+    /**
+     * Decodes the row of {@code nodeId} straight from the mapping.
+     *
+     * @return the embedding, or {@code null} if the node has none
+     */
+    public float[] get(long nodeId) {
+        if (!contains(nodeId)) {
+            return null;
+        }
+        float[] values = new float[dim];
+        get(nodeId, values);
+        return values;
+    }
+
+    /**
+     * Decodes the row of {@code nodeId} into {@code values}, which must have
+     * length {@link #dim()}. The row must exist.
+     */
+    public void get(long nodeId, float[] values) {
+        ByteBuffer segment = segments[(int) (nodeId / rowsPerSegment)];
+        int base = offset(nodeId);
+        float scale = segment.getFloat(base);
+        base += Float.BYTES;
+        switch (encoding) {
+            case FLOAT32:
+                for (int i = 0; i < dim; i++) {
+                    values[i] = segment.getFloat(base + i * Float.BYTES);
+                }
+                break;
+            case FLOAT16:
+                for (int i = 0; i < dim; i++) {
+                    values[i] = Float.float16ToFloat(segment.getShort(base + i * Short.BYTES));
+                }
+                break;
+            case INT8:
+                for (int i = 0; i < dim; i++) {
+                    values[i] = segment.get(base + i) * scale;
+                }
+                break;
+        }
+    }
+
+    /**
+     * Computes the dot product of the row of {@code nodeId} with
+     * {@code query} straight from the mapping, without decoding the row into
+     * an array. The row must exist.
+     */
+    public float dot(long nodeId, float[] query) {
+        ByteBuffer segment = segments[(int) (nodeId / rowsPerSegment)];
+        int base = offset(nodeId);
+        float scale = segment.getFloat(base);
+        base += Float.BYTES;
+        float dot = 0f;
+        switch (encoding) {
+            case FLOAT32:
+                for (int i = 0; i < dim; i++) {
+                    dot += query[i] * segment.getFloat(base + i * Float.BYTES);
+                }
+                break;
+            case FLOAT16:
+                for (int i = 0; i < dim; i++) {
+                    dot += query[i] * Float.float16ToFloat(segment.getShort(base + i * Short.BYTES));
+                }
+                break;
+            case INT8:
+                for (int i = 0; i < dim; i++) {
+                    dot += query[i] * segment.get(base + i);
+                }
+                dot *= scale;
+                break;
+        }
+        return dot;
+    }
+
+    /**
+     * Starts a new store which replaces {@code file} atomically on
+     * {@link Writer#commit()}, so readers never observe a partial store.
+     *
+     * @param file       the store file
+     * @param dim        the embedding dimension
+     * @param rows       exclusive upper bound of the node ids to store
+     * @param encoding   the row encoding
+     * @param modelStamp identifies the model parameters the rows come from
+     */
+    public static Writer create(Path file, int dim, long rows, Encoding encoding, long modelStamp) {
+        try {
+            return new Writer(file, dim, rows, encoding, modelStamp);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create embedding store " + file, e);
+        }
+    }
+
+    public static class Writer implements AutoCloseable {
+        private final Path file;
+        private final Path tempFile;
+        private final FileChannel channel;
+        private final Encoding encoding;
+        private final int dim;
+        private final int rowBytes;
+        private final long rows;
+        private final int rowsPerSegment;
+        private final ByteBuffer[] segments;
+        private long written;
+
+        private Writer(Path file, int dim, long rows, Encoding encoding, long modelStamp) throws IOException {
+            this.file = file;
+            this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            this.encoding = encoding;
+            this.dim = dim;
+            this.rows = rows;
+            this.rowBytes = Float.BYTES + dim * encoding.bytes;
+            this.rowsPerSegment = (int) Math.max(1, MAX_SEGMENT_BYTES / rowBytes);
+            this.channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, MAGIC);
+            header.putInt(8, encoding.ordinal());
+            header.putInt(12, dim);
+            header.putInt(16, rowBytes);
+            header.putLong(24, rows);
+            header.putLong(32, modelStamp);
+            channel.write(header, 0);
+            this.segments = map(channel, FileChannel.MapMode.READ_WRITE, rows, rowBytes, rowsPerSegment);
+        }
+
+        public void put(long nodeId, float[] values) {
+            if (nodeId < 0 || nodeId >= rows) {
+                throw new IllegalArgumentException("Node id " + nodeId + " out of store range " + rows);
+            }
+            if (values.length != dim) {
+                throw new IllegalArgumentException("Expected " + dim + " values, got " + values.length);
+            }
+            ByteBuffer segment = segments[(int) (nodeId / rowsPerSegment)];
+            int base = (int) (nodeId % rowsPerSegment) * rowBytes;
+            int data = base + Float.BYTES;
+            switch (encoding) {
+                case FLOAT32:
+                    segment.putFloat(base, 1f);
+                    for (int i = 0; i < dim; i++) {
+                        segment.putFloat(data + i * Float.BYTES, values[i]);
+                    }
+                    break;
+                case FLOAT16:
+                    segment.putFloat(base, 1f);
+                    for (int i = 0; i < dim; i++) {
+                        segment.putShort(data + i * Short.BYTES, Float.floatToFloat16(values[i]));
+                    }
+                    break;
+                case INT8:
+                    float maxAbs = 0f;
+                    for (float v : values) {
+                        maxAbs = Math.max(maxAbs, Math.abs(v));
+                    }
+                    // a non-zero scale also marks the row as present
+                    float scale = maxAbs == 0f ? Float.MIN_NORMAL : maxAbs / 127f;
+                    segment.putFloat(base, scale);
+                    for (int i = 0; i < dim; i++) {
+                        segment.put(data + i, (byte) Math.round(values[i] / scale));
+                    }
+                    break;
+            }
+            written++;
+        }
+
+        public long written() {
+            return written;
+        }
+
+        /**
+         * Flushes the rows and publishes the store.
+         */
+        public void commit() {
+            try {
+                for (ByteBuffer segment : segments) {
+                    ((MappedByteBuffer) segment).force();
+                }
+                channel.close();
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to commit embedding store " + file, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (channel.isOpen()) {
+                    channel.close();
+                }
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                System.err.printf("Failed to clean up embedding store '%s': %s%n", tempFile, e.getMessage());
+            }
+        }
+    }
+}
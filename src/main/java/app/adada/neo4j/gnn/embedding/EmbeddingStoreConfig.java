@@ -0,0 +1,14 @@
+package app.adada.neo4j.gnn.embedding;
+
+import java.util.Map;
+
+import app.adada.neo4j.util.TypeParser;
+
+public record EmbeddingStoreConfig(
+        String encoding) {
+
+    public static EmbeddingStoreConfig fromMap(Map<String, Object> config) {
+        return new EmbeddingStoreConfig(
+                TypeParser.parse(config.get("encoding"), String.class, "float32"));
+    }
+}
@@ -0,0 +1,23 @@
+package app.adada.neo4j.gnn.embedding;
+
+import java.util.Map;
+
+import app.adada.neo4j.util.TypeParser;
+
+public record HnswConfig(
+        Long M,
+        Long efConstruction,
+        Long ef,
+        Long concurrency,
+        Long randomSeed) {
+
+    public static HnswConfig fromMap(Map<String, Object> config) {
+        return new HnswConfig(
+                TypeParser.parse(config.get("M"), Long.class, 16L),
+                TypeParser.parse(config.get("efConstruction"), Long.class, 200L),
+                TypeParser.parse(config.get("ef"), Long.class, 100L),
+                TypeParser.parse(config.get("concurrency"), Long.class,
+                        (long) Runtime.getRuntime().availableProcessors()),
+                TypeParser.parse(config.get("randomSeed"), Long.class, 42L));
+    }
+}
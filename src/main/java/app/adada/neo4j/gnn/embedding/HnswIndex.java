@@ -0,0 +1,601 @@
+package app.adada.neo4j.gnn.embedding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hierarchical navigable small world graph over the rows of an
+ * {@link EmbeddingStore}, for approximate cosine nearest-neighbor search.
+ *
+ * <p>
+ * Levels are drawn up front and the node with the highest level is inserted
+ * first, so the entry point never changes and the remaining nodes can be
+ * inserted concurrently; neighbor lists are guarded by striped locks. Layer 0
+ * keeps up to {@code 2 * M} links per node, the upper layers up to {@code M}.
+ * Distances are computed against the rows of the memory-mapped store, so only
+ * the inverse row norms are kept on the heap.
+ */
+public class HnswIndex {
+
+    public static final String FILE_NAME = "hnsw.bin";
+
+    private static final long MAGIC = 0x4E54484E53573031L; // "NTHNSW01"
+    private static final int LOCK_STRIPES = 1 << 12;
+
+    private static final Map<Path, HnswIndex> OPEN = new ConcurrentHashMap<>();
+
+    public record Neighbor(long nodeId, double score) {
+    }
+
+    private final int dim;
+    private final int m;
+    private final int m0;
+    private final EmbeddingStore store;
+    private final long storeVersion;
+    private final long[] ids;
+    private final float[] inverseNorms;
+    private final byte[] levels;
+    private final int[] links0;
+    private final int[][] upper;
+    private final int entry;
+    private final int maxLevel;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    /** Visited sets of finished searches, reused so that concurrent searches do not share one. */
+    private final ConcurrentLinkedQueue<Visited> visitedPool = new ConcurrentLinkedQueue<>();
+    private long fileVersion;
+
+    private HnswIndex(int m, EmbeddingStore store, long[] ids, byte[] levels, int[] links0, int[][] upper,
+            int entry) {
+        this.dim = store.dim();
+        this.m = m;
+        this.m0 = 2 * m;
+        this.store = store;
+        this.storeVersion = store.version();
+        this.ids = ids;
+        this.inverseNorms = inverseNorms(store, ids);
+        this.levels = levels;
+        this.links0 = links0;
+        this.upper = upper;
+        this.entry = entry;
+        this.maxLevel = ids.length == 0 ? 0 : levels[entry];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Builds the index over all rows of {@code store}.
+     *
+     * @param store          the embeddings to index
+     * @param m              links per node on the upper layers
+     * @param efConstruction candidate list size while inserting
+     * @param concurrency    number of inserting threads
+     * @param seed           seed of the level assignment
+     */
+    public static HnswIndex build(EmbeddingStore store, int m, int efConstruction, int concurrency, long seed) {
+        if (m < 2 || efConstruction < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("`M` must be at least 2, `efConstruction` and `concurrency` positive");
+        }
+        long[] ids = new long[1024];
+        int n = 0;
+        for (long nodeId = 0; nodeId < store.rows(); nodeId++) {
+            if (store.contains(nodeId)) {
+                if (n == ids.length) {
+                    ids = Arrays.copyOf(ids, n * 2);
+                }
+                ids[n++] = nodeId;
+            }
+        }
+        ids = Arrays.copyOf(ids, n);
+
+        Random random = new Random(seed);
+        double levelMultiplier = 1 / Math.log(m);
+        byte[] levels = new byte[n];
+        int[][] upper = new int[n][];
+        int entry = 0;
+        for (int i = 0; i < n; i++) {
+            int level = Math.min(Byte.MAX_VALUE, (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier));
+            levels[i] = (byte) level;
+            if (level > 0) {
+                upper[i] = new int[level * (m + 1)];
+            }
+            if (level > levels[entry]) {
+                entry = i;
+            }
+        }
+        HnswIndex index = new HnswIndex(m, store, ids, levels, new int[n * (2 * m + 1)], upper, entry);
+        if (n > 0) {
+            index.insertAll(efConstruction, concurrency);
+        }
+        return index;
+    }
+
+    private static float[] inverseNorms(EmbeddingStore store, long[] ids) {
+        float[] inverseNorms = new float[ids.length];
+        float[] row = new float[store.dim()];
+        for (int i = 0; i < ids.length; i++) {
+            store.get(ids[i], row);
+            inverseNorms[i] = inverseNorm(row);
+        }
+        return inverseNorms;
+    }
+
+    /** @return the inverse L2 norm of {@code v}, or 0 for a zero vector */
+    private static float inverseNorm(float[] v) {
+        double norm = 0;
+        for (float x : v) {
+            norm += x * x;
+        }
+        return norm > 0 ? (float) (1 / Math.sqrt(norm)) : 0f;
+    }
+
+    /** Decodes the row of {@code node} from the store, normalized. */
+    private float[] vector(int node) {
+        float[] v = new float[dim];
+        store.get(ids[node], v);
+        float scale = inverseNorms[node];
+        for (int i = 0; i < dim; i++) {
+            v[i] *= scale;
+        }
+        return v;
+    }
+
+    private void insertAll(int efConstruction, int concurrency) {
+        int n = ids.length;
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < concurrency; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < n; i = next.getAndIncrement()) {
+                        if (i != entry) {
+                            insert(i, efConstruction);
+                        }
+                        int count = done.incrementAndGet();
+                        if (count % 100000 == 0) {
+                            System.out.printf("HNSW build: %d/%d nodes inserted in %d ms%n", count, n,
+                                    System.currentTimeMillis() - start);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building the HNSW index", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to build the HNSW index", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void insert(int node, int efConstruction) {
+        int level = levels[node];
+        float[] query = vector(node);
+        int ep = entry;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedy(query, ep, l);
+        }
+        int[] entries = { ep };
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            long[] candidates = searchLayer(query, entries, efConstruction, l);
+            int[] neighbors = select(candidates, m);
+            synchronized (lock(node)) {
+                int[] links = links(node, l);
+                int base = base(node, l);
+                System.arraycopy(neighbors, 0, links, base + 1, neighbors.length);
+                links[base] = neighbors.length;
+            }
+            for (int neighbor : neighbors) {
+                link(neighbor, node, l);
+            }
+            entries = new int[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                entries[i] = node(candidates[i]);
+            }
+        }
+    }
+
+    /** Adds {@code node} to the links of {@code from}, pruning them if full. */
+    private void link(int from, int node, int level) {
+        synchronized (lock(from)) {
+            int[] links = links(from, level);
+            int base = base(from, level);
+            int count = links[base];
+            int max = level == 0 ? m0 : m;
+            if (count < max) {
+                links[base + 1 + count] = node;
+                links[base] = count + 1;
+                return;
+            }
+            float[] origin = vector(from);
+            long[] candidates = new long[count + 1];
+            for (int i = 0; i < count; i++) {
+                int other = links[base + 1 + i];
+                candidates[i] = encode(distance(origin, other), other);
+            }
+            candidates[count] = encode(distance(origin, node), node);
+            Arrays.sort(candidates);
+            int[] kept = select(candidates, max);
+            System.arraycopy(kept, 0, links, base + 1, kept.length);
+            links[base] = kept.length;
+        }
+    }
+
+    /**
+     * Keeps candidates (sorted by distance) that are closer to the base node
+     * than to any already kept one, which preserves links into other clusters.
+     */
+    private int[] select(long[] candidates, int max) {
+        int[] selected = new int[max];
+        int count = 0;
+        for (int i = 0; i < candidates.length && count < max; i++) {
+            int node = node(candidates[i]);
+            float d = distance(candidates[i]);
+            boolean keep = true;
+            float[] v = count == 0 ? null : vector(node);
+            for (int j = 0; j < count && keep; j++) {
+                keep = distance(v, selected[j]) >= d;
+            }
+            if (keep) {
+                selected[count++] = node;
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    private int greedy(float[] query, int ep, int level) {
+        return node(searchLayer(query, new int[] { ep }, 1, level)[0]);
+    }
+
+    /**
+     * Best-first search on one layer.
+     *
+     * @return up to {@code ef} encoded (distance, node) pairs, closest first
+     */
+    private long[] searchLayer(float[] query, int[] entries, int ef, int level) {
+        Visited seen = visitedPool.poll();
+        if (seen == null) {
+            seen = new Visited(ids.length);
+        }
+        try {
+            return searchLayer(query, entries, ef, level, seen);
+        } finally {
+            visitedPool.offer(seen);
+        }
+    }
+
+    private long[] searchLayer(float[] query, int[] entries, int ef, int level, Visited seen) {
+        seen.clear();
+        LongHeap candidates = new LongHeap();
+        LongHeap results = new LongHeap(); // negated, so the top is the farthest result
+        for (int ep : entries) {
+            if (seen.visit(ep)) {
+                long e = encode(distance(query, ep), ep);
+                candidates.push(e);
+                results.push(-e);
+            }
+        }
+        while (results.size() > ef) {
+            results.pop();
+        }
+        int[] scratch = new int[m0];
+        while (candidates.size() > 0) {
+            long c = candidates.pop();
+            if (results.size() >= ef && distance(c) > distance(-results.peek())) {
+                break;
+            }
+            int count = copyLinks(node(c), level, scratch);
+            for (int i = 0; i < count; i++) {
+                int neighbor = scratch[i];
+                if (!seen.visit(neighbor)) {
+                    continue;
+                }
+                float d = distance(query, neighbor);
+                if (results.size() < ef || d < distance(-results.peek())) {
+                    long e = encode(d, neighbor);
+                    candidates.push(e);
+                    results.push(-e);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        long[] out = new long[results.size()];
+        for (int i = out.length - 1; i >= 0; i--) {
+            out[i] = -results.pop();
+        }
+        return out;
+    }
+
+    private int copyLinks(int node, int level, int[] target) {
+        synchronized (lock(node)) {
+            int[] links = links(node, level);
+            int base = base(node, level);
+            int count = links[base];
+            System.arraycopy(links, base + 1, target, 0, count);
+            return count;
+        }
+    }
+
+    private int[] links(int node, int level) {
+        return level == 0 ? links0 : upper[node];
+    }
+
+    private int base(int node, int level) {
+        return level == 0 ? node * (m0 + 1) : (level - 1) * (m + 1);
+    }
+
+    private Object lock(int node) {
+        return locks[node & (LOCK_STRIPES - 1)];
+    }
+
+    /** Cosine distance of a normalized query to the row of {@code node}. */
+    private float distance(float[] query, int node) {
+        return Math.max(0f, 1f - store.dot(ids[node], query) * inverseNorms[node]);
+    }
+
+    private static long encode(float distance, int node) {
+        // non-negative floats order like their bit patterns
+        return ((long) Float.floatToIntBits(distance) << 32) | node;
+    }
+
+    private static float distance(long encoded) {
+        return Float.intBitsToFloat((int) (encoded >>> 32));
+    }
+
+    private static int node(long encoded) {
+        return (int) encoded;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /** Version of the embedding store the index was built from. */
+    public long storeVersion() {
+        return storeVersion;
+    }
+
+    /**
+     * Finds the approximate {@code k} nearest rows to {@code query} by cosine
+     * similarity.
+     *
+     * @param query   the query vector
+     * @param k       the number of neighbors
+     * @param ef      candidate list size, at least {@code k}
+     * @param exclude node id to leave out of the result, or -1
+     */
+    public List<Neighbor> search(float[] query, int k, int ef, long exclude) {
+        if (query.length != dim) {
+            throw new IllegalArgumentException("Expected a query of " + dim + " values, got " + query.length);
+        }
+        if (ids.length == 0 || k <= 0) {
+            return List.of();
+        }
+        float[] q = query.clone();
+        float scale = inverseNorm(q);
+        for (int i = 0; i < dim; i++) {
+            q[i] *= scale;
+        }
+        int ep = entry;
+        for (int l = maxLevel; l > 0; l--) {
+            ep = greedy(q, ep, l);
+        }
+        long[] found = searchLayer(q, new int[] { ep }, Math.max(ef, k + 1), 0);
+        List<Neighbor> neighbors = new ArrayList<>(k);
+        for (int i = 0; i < found.length && neighbors.size() < k; i++) {
+            long nodeId = ids[node(found[i])];
+            if (nodeId != exclude) {
+                neighbors.add(new Neighbor(nodeId, 1.0 - distance(found[i])));
+            }
+        }
+        return neighbors;
+    }
+
+    /**
+     * Writes the graph (not the vectors, which are read from the store) and
+     * replaces {@code file} atomically.
+     */
+    public void save(Path file) {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+            out.writeLong(MAGIC);
+            out.writeInt(dim);
+            out.writeInt(m);
+            out.writeLong(storeVersion);
+            out.writeInt(ids.length);
+            out.writeInt(entry);
+            for (long id : ids) {
+                out.writeLong(id);
+            }
+            out.write(levels);
+            for (int link : links0) {
+                out.writeInt(link);
+            }
+            for (int[] links : upper) {
+                if (links != null) {
+                    for (int link : links) {
+                        out.writeInt(link);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save HNSW index " + file, e);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to publish HNSW index " + file, e);
+        }
+        OPEN.remove(file);
+    }
+
+    /**
+     * Opens a saved index, reusing a previous load unless the index file has
+     * been replaced since.
+     *
+     * @throws IllegalStateException if the index was built from another store
+     */
+    public static HnswIndex open(Path file, EmbeddingStore store) {
+        try {
+            if (!Files.exists(file)) {
+                throw new IllegalStateException("HNSW index not found: " + file);
+            }
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            HnswIndex index = OPEN.get(file);
+            if (index == null || index.fileVersion != modified || index.storeVersion != store.version()) {
+                index = read(file, store);
+                index.fileVersion = modified;
+                OPEN.put(file, index);
+            }
+            return index;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open HNSW index " + file, e);
+        }
+    }
+
+    public static void evict(Path file) {
+        OPEN.remove(file);
+    }
+
+    private static HnswIndex read(Path file, EmbeddingStore store) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readLong() != MAGIC) {
+                throw new IOException("Not an HNSW index: " + file);
+            }
+            int dim = in.readInt();
+            int m = in.readInt();
+            long storeVersion = in.readLong();
+            if (storeVersion != store.version() || dim != store.dim()) {
+                throw new IllegalStateException("HNSW index " + file
+                        + " is stale, the embedding store was rewritten after it was built");
+            }
+            int n = in.readInt();
+            int entry = in.readInt();
+            long[] ids = new long[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = in.readLong();
+            }
+            byte[] levels = new byte[n];
+            in.readFully(levels);
+            int[] links0 = new int[n * (2 * m + 1)];
+            for (int i = 0; i < links0.length; i++) {
+                links0[i] = in.readInt();
+            }
+            int[][] upper = new int[n][];
+            for (int i = 0; i < n; i++) {
+                if (levels[i] > 0) {
+                    upper[i] = new int[levels[i] * (m + 1)];
+                    for (int j = 0; j < upper[i].length; j++) {
+                        upper[i][j] = in.readInt();
+                    }
+                }
+            }
+            return new HnswIndex(m, store, ids, levels, links0, upper, entry);
+        }
+    }
+
+    /** Visited marks that are cleared in O(1) by bumping an epoch. */
+    private static final class Visited {
+        private final int[] marks;
+        private int epoch;
+
+        Visited(int size) {
+            this.marks = new int[size];
+        }
+
+        void clear() {
+            if (++epoch == 0) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        /** @return whether {@code node} was not visited before */
+        boolean visit(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+
+    /** Binary min-heap of primitive longs. */
+    private static final class LongHeap {
+        private long[] heap = new long[64];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        void push(long value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package app.adada.neo4j.gnn.graphsage;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.nn.AbstractBlock;
+import ai.djl.nn.Activation;
+import ai.djl.nn.Block;
+import ai.djl.nn.core.Linear;
+import ai.djl.nn.norm.Dropout;
+import ai.djl.nn.norm.LayerNorm;
+import ai.djl.training.ParameterStore;
+import ai.djl.util.PairList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Native DJL counterpart of the {@code GNN} module in
+ * {@code resources/builder/graph_sage.py}.
+ *
+ * <pre>
+ * Linear_1(in) -> x
+ * loop {
+ *     conv(dropout(activate(norm(x)))) (+ x) -> x
+ * }
+ * Linear_2(dropout(activate(norm(x)))) -> out
+ * </pre>
+ *
+ * Used when the model is created with {@code builder: "java"}, so no Python
+ * interpreter is needed to create or train the model.
+ */
+public class GraphSageBlock extends AbstractBlock {
+
+    private static final byte VERSION = 1;
+
+    private final String activation;
+    private final boolean residual;
+    private final long outDim;
+
+    private final List<Linear> preLinears = new ArrayList<>();
+    private final List<Layer> layers = new ArrayList<>();
+    private final List<Linear> postLinears = new ArrayList<>();
+    private final Block norm;
+    private final Dropout dropout;
+
+    public GraphSageBlock(GraphSageModelConfig config) {
+        super(VERSION);
+        long inDim = config.featureDimension();
+        long hiddenDim = config.hiddenDimension();
+        this.outDim = config.supervised() ? config.classDimension() : config.embeddingDimension();
+        this.activation = config.activationFunction();
+        this.residual = config.residualConnection();
+        int numLayers = config.sampleSizes().size();
+        int numPre = config.preLinearLayers().intValue();
+        int numPost = config.postLinearLayers().intValue();
+        float dropoutRate = config.dropoutRate();
+        boolean layerNorm = config.layerNormalization();
+
+        for (int i = 0; i < numPre; i++) {
+            preLinears.add(addChildBlock("lin1_" + i, Linear.builder().setUnits(hiddenDim).build()));
+        }
+        for (int i = 0; i < numLayers; i++) {
+            boolean first = i == 0 && numPre == 0;
+            boolean last = i == numLayers - 1 && numPost == 0;
+            long layerIn = first ? inDim : hiddenDim;
+            long layerOut = last ? outDim : hiddenDim;
+            layers.add(new Layer(this, i, layerIn, layerOut, config.aggregator(),
+                    first ? 0f : dropoutRate, !first && layerNorm));
+        }
+        this.norm = layerNorm ? addChildBlock("norm", LayerNorm.builder().build()) : null;
+        this.dropout = addChildBlock("dropout", Dropout.builder().optRate(dropoutRate).build());
+        for (int i = 0; i < numPost; i++) {
+            postLinears.add(addChildBlock("lin2_" + i,
+                    Linear.builder().setUnits(i == numPost - 1 ? outDim : hiddenDim).build()));
+        }
+    }
+
+    @Override
+    protected NDList forwardInternal(ParameterStore parameterStore, NDList inputs, boolean training,
+            PairList<String, Object> params) {
+        NDArray x = inputs.get(0);
+        NDArray edgeIndex = inputs.get(1);
+        x = forwardPre(parameterStore, x, training);
+        for (int i = 0; i < layers.size(); i++) {
+            x = forwardLayer(parameterStore, i, x, edgeIndex, training);
+        }
+        x = forwardPost(parameterStore, x, training);
+        return new NDList(x);
+    }
+
+    public int numLayers() {
+        return layers.size();
+    }
+
+    /**
+     * Applies the linear layers before the first GNN layer.
+     */
+    public NDArray forwardPre(ParameterStore parameterStore, NDArray x, boolean training) {
+        for (Linear lin : preLinears) {
+            x = lin.forward(parameterStore, new NDList(x), training).singletonOrThrow();
+        }
+        return x;
+    }
+
+    /**
+     * Applies GNN layer {@code layer} (including its residual connection).
+     * Row {@code i} of the output only depends on row {@code i} of {@code x} and
+     * its incoming neighbors, which is what layer-wise inference relies on.
+     */
+    public NDArray forwardLayer(ParameterStore parameterStore, int layer, NDArray x, NDArray edgeIndex,
+            boolean training) {
+        NDArray out = layers.get(layer).forward(parameterStore, x, edgeIndex, training);
+        // Residual method: https://ar5iv.labs.arxiv.org/html/1603.05027
+        if (residual) {
+            out = out.add(x);
+        }
+        return out;
+    }
+
+    /**
+     * Applies the output head after the last GNN layer.
+     */
+    public NDArray forwardPost(ParameterStore parameterStore, NDArray x, boolean training) {
+        if (postLinears.isEmpty()) {
+            return x;
+        }
+        if (norm != null) {
+            x = norm.forward(parameterStore, new NDList(x), training).singletonOrThrow();
+        }
+        x = activate(activation, x);
+        x = dropout.forward(parameterStore, new NDList(x), training).singletonOrThrow();
+        for (Linear lin : postLinears) {
+            x = lin.forward(parameterStore, new NDList(x), training).singletonOrThrow();
+        }
+        return x;
+    }
+
+    @Override
+    public Shape[] getOutputShapes(Shape[] inputShapes) {
+        return new Shape[] { new Shape(inputShapes[0].get(0), outDim) };
+    }
+
+    @Override
+    protected void initializeChildBlocks(NDManager manager, DataType dataType, Shape... inputShapes) {
+        Shape shape = inputShapes[0];
+        for (Linear lin : preLinears) {
+            lin.initialize(manager, dataType, shape);
+            shape = lin.getOutputShapes(new Shape[] { shape })[0];
+        }
+        for (Layer layer : layers) {
+            layer.initialize(manager, dataType, shape, inputShapes[1]);
+            shape = layer.conv.getOutputShapes(new Shape[] { shape, inputShapes[1] })[0];
+        }
+        if (norm != null) {
+            norm.initialize(manager, dataType, shape);
+        }
+        dropout.initialize(manager, dataType, shape);
+        for (Linear lin : postLinears) {
+            lin.initialize(manager, dataType, shape);
+            shape = lin.getOutputShapes(new Shape[] { shape })[0];
+        }
+    }
+
+    static NDArray activate(String activation, NDArray x) {
+        switch (activation) {
+            case "relu":
+                return Activation.relu(x);
+            case "sigmoid":
+                return Activation.sigmoid(x);
+            case "none":
+                return x;
+            default:
+                throw new IllegalArgumentException("Unsupported activation function: " + activation);
+        }
+    }
+
+    /**
+     * One {@code GNNConv}: {@code conv(dropout(activate(norm(x))))}.
+     */
+    private final class Layer {
+        private final Block norm;
+        private final Dropout dropout;
+        private final SageConv conv;
+
+        Layer(GraphSageBlock parent, int index, long inDim, long outDim, String aggregator, float dropoutRate,
+                boolean layerNorm) {
+            this.norm = layerNorm ? parent.addChildBlock("convs_" + index + "_norm", LayerNorm.builder().build())
+                    : null;
+            this.dropout = parent.addChildBlock("convs_" + index + "_dropout",
+                    Dropout.builder().optRate(dropoutRate).build());
+            this.conv = parent.addChildBlock("convs_" + index + "_conv", new SageConv(outDim, aggregator));
+        }
+
+        NDArray forward(ParameterStore parameterStore, NDArray x, NDArray edgeIndex, boolean training) {
+            if (norm != null) {
+                x = norm.forward(parameterStore, new NDList(x), training).singletonOrThrow();
+            }
+            x = activate(activation, x);
+            x = dropout.forward(parameterStore, new NDList(x), training).singletonOrThrow();
+            return conv.forward(parameterStore, new NDList(x, edgeIndex), training).singletonOrThrow();
+        }
+
+        void initialize(NDManager manager, DataType dataType, Shape xShape, Shape edgeShape) {
+            if (norm != null) {
+                norm.initialize(manager, dataType, xShape);
+            }
+            dropout.initialize(manager, dataType, xShape);
+            conv.initialize(manager, dataType, xShape, edgeShape);
+        }
+    }
+}
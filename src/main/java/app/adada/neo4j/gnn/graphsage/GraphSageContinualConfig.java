@@ -0,0 +1,29 @@
+package app.adada.neo4j.gnn.graphsage;
+
+import java.util.Map;
+import java.util.Random;
+
+import app.adada.neo4j.util.TypeParser;
+
+public record GraphSageContinualConfig(
+        Long maxGpus,
+        Long randomSeed,
+        Long batchSize,
+        Long steps,
+        Double deltaFraction,
+        Double learningRate,
+        Double negativeSampleWeight,
+        Long maxNativeBytes) {
+
+    public static GraphSageContinualConfig fromMap(Map<String, Object> config) {
+        return new GraphSageContinualConfig(
+                TypeParser.parse(config.get("maxGpus"), Long.class, 1L),
+                TypeParser.parse(config.get("randomSeed"), Long.class, new Random().nextLong()),
+                TypeParser.parse(config.get("batchSize"), Long.class, 100L),
+                TypeParser.parse(config.get("steps"), Long.class, 100L),
+                TypeParser.parse(config.get("deltaFraction"), Double.class, 0.5),
+                TypeParser.parse(config.get("learningRate"), Double.class, 0.0001),
+                TypeParser.parse(config.get("negativeSampleWeight"), Double.class, 1.0),
+                TypeParser.parse(config.get("maxNativeBytes"), Long.class, 0L));
+    }
+}
@@ -0,0 +1,16 @@
+package app.adada.neo4j.gnn.graphsage;
+
+import java.util.Map;
+
+import app.adada.neo4j.util.TypeParser;
+
+public record GraphSageDispatchConfig(
+        Long maxDelayMicros,
+        Long maxBatchNodes) {
+
+    public static GraphSageDispatchConfig fromMap(Map<String, Object> config) {
+        return new GraphSageDispatchConfig(
+                TypeParser.parse(config.get("maxDelayMicros"), Long.class, 2000L),
+                TypeParser.parse(config.get("maxBatchNodes"), Long.class, 1024L));
+    }
+}
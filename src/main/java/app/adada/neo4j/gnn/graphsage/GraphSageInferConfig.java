@@ -5,14 +5,32 @@ import java.util.Map;
 import app.adada.neo4j.util.TypeParser;
 
 public record GraphSageInferConfig(
-        Integer maxGpus,
-        Integer randomSeed,
-        Integer batchSize) {
+        Long maxGpus,
+        Long randomSeed,
+        Long batchSize,
+        String precision,
+        Long maxNativeBytes) {
+
+    public static final String FLOAT32 = "float32";
+    /** Dynamically quantized artifact written by {@code neotorch.graphsage.quantize}, CPU only. */
+    public static final String INT8 = "int8";
+
+    public GraphSageInferConfig {
+        if (!FLOAT32.equals(precision) && !INT8.equals(precision)) {
+            throw new IllegalArgumentException("`precision` must be \"" + FLOAT32 + "\" or \"" + INT8 + "\"");
+        }
+    }
 
     public static GraphSageInferConfig fromMap(Map<String, Object> config) {
         return new GraphSageInferConfig(
-                TypeParser.parse(config.get("maxGpus"), Integer.class, 1),
-                TypeParser.parse(config.get("randomSeed"), Integer.class, null),
-                TypeParser.parse(config.get("batchSize"), Integer.class, 100));
+                TypeParser.parse(config.get("maxGpus"), Long.class, 1L),
+                TypeParser.parse(config.get("randomSeed"), Long.class, null),
+                TypeParser.parse(config.get("batchSize"), Long.class, 100L),
+                TypeParser.parse(config.get("precision"), String.class, FLOAT32),
+                TypeParser.parse(config.get("maxNativeBytes"), Long.class, 0L));
+    }
+
+    public GraphSageInferConfig withPrecision(String precision) {
+        return new GraphSageInferConfig(maxGpus, randomSeed, batchSize, precision, maxNativeBytes);
     }
 }
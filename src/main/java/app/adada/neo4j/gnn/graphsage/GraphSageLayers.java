@@ -0,0 +1,106 @@
+package app.adada.neo4j.gnn.graphsage;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.nn.Block;
+import ai.djl.training.ParameterStore;
+
+/**
+ * Layer-by-layer view of a GraphSAGE model, used by layer-wise inference.
+ *
+ * <p>
+ * Native {@link GraphSageBlock}s are called directly; TorchScript modules built
+ * by {@code graph_sage.py} expose the same steps as exported methods
+ * ({@code forward_pre}, {@code forward_layer}, {@code forward_post}).
+ */
+public interface GraphSageLayers {
+
+    int numLayers();
+
+    NDArray forwardPre(NDArray x);
+
+    NDArray forwardLayer(int layer, NDArray x, NDArray edgeIndex);
+
+    NDArray forwardPost(NDArray x);
+
+    static GraphSageLayers of(Block block, int numLayers) {
+        if (block instanceof GraphSageBlock sageBlock) {
+            return new Native(sageBlock);
+        }
+        return new Scripted(block, numLayers);
+    }
+
+    final class Native implements GraphSageLayers {
+        private final GraphSageBlock block;
+
+        Native(GraphSageBlock block) {
+            this.block = block;
+        }
+
+        @Override
+        public int numLayers() {
+            return block.numLayers();
+        }
+
+        @Override
+        public NDArray forwardPre(NDArray x) {
+            return block.forwardPre(new ParameterStore(x.getManager(), false), x, false);
+        }
+
+        @Override
+        public NDArray forwardLayer(int layer, NDArray x, NDArray edgeIndex) {
+            return block.forwardLayer(new ParameterStore(x.getManager(), false), layer, x, edgeIndex, false);
+        }
+
+        @Override
+        public NDArray forwardPost(NDArray x) {
+            return block.forwardPost(new ParameterStore(x.getManager(), false), x, false);
+        }
+    }
+
+    final class Scripted implements GraphSageLayers {
+        private final Block block;
+        private final int numLayers;
+
+        Scripted(Block block, int numLayers) {
+            this.block = block;
+            this.numLayers = numLayers;
+        }
+
+        @Override
+        public int numLayers() {
+            return numLayers;
+        }
+
+        @Override
+        public NDArray forwardPre(NDArray x) {
+            return runMethod("forward_pre", new NDList(x));
+        }
+
+        @Override
+        public NDArray forwardLayer(int layer, NDArray x, NDArray edgeIndex) {
+            NDArray index = x.getManager().create((long) layer);
+            return runMethod("forward_layer", new NDList(x, edgeIndex, index));
+        }
+
+        @Override
+        public NDArray forwardPost(NDArray x) {
+            return runMethod("forward_post", new NDList(x));
+        }
+
+        private NDArray runMethod(String method, NDList inputs) {
+            NDManager manager = inputs.get(0).getManager();
+            // DJL's PyTorch engine dispatches to the method named by this marker array
+            NDArray marker = manager.create(0f);
+            marker.setName("module_method:" + method);
+            inputs.add(marker);
+            try {
+                return block.forward(new ParameterStore(manager, false), inputs, false).singletonOrThrow();
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Model does not support layer-wise inference (method '"
+                        + method + "'); rebuild it with the current graph_sage.py", e);
+            }
+        }
+    }
+}
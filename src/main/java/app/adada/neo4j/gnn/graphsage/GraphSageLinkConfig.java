@@ -0,0 +1,16 @@
+package app.adada.neo4j.gnn.graphsage;
+
+import java.util.Map;
+
+import app.adada.neo4j.util.TypeParser;
+
+public record GraphSageLinkConfig(
+        Long batchSize,
+        Long inferBatchSize) {
+
+    public static GraphSageLinkConfig fromMap(Map<String, Object> config) {
+        return new GraphSageLinkConfig(
+                TypeParser.parse(config.get("batchSize"), Long.class, 10000L),
+                TypeParser.parse(config.get("inferBatchSize"), Long.class, 100L));
+    }
+}
@@ -2,13 +2,21 @@ package app.adada.neo4j.gnn.graphsage;
 
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 
+import ai.djl.Device;
 import ai.djl.MalformedModelException;
 import ai.djl.Model;
 import ai.djl.engine.Engine;
 import ai.djl.metric.Metrics;
+import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.types.Shape;
+import ai.djl.nn.Activation;
+import ai.djl.nn.Block;
+import ai.djl.pytorch.engine.PtSymbolBlock;
+import ai.djl.pytorch.jni.JniUtils;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
@@ -16,6 +24,7 @@ import ai.djl.training.DefaultTrainingConfig;
 import ai.djl.training.Trainer;
 import ai.djl.training.TrainingResult;
 import ai.djl.training.dataset.Dataset;
+import ai.djl.training.evaluator.Accuracy;
 import ai.djl.training.listener.EpochTrainingListener;
 import ai.djl.training.listener.EvaluatorTrainingListener;
 import ai.djl.training.listener.MemoryTrainingListener;
@@ -27,22 +36,49 @@ import ai.djl.training.optimizer.Adam;
 import ai.djl.training.optimizer.Optimizer;
 import ai.djl.training.tracker.FixedPerVarTracker;
 import ai.djl.translate.TranslateException;
+import app.adada.neo4j.algo.NeighborSampler;
 import app.adada.neo4j.config.PluginSettings;
+import app.adada.neo4j.event.DirtyTracker;
 import app.adada.neo4j.gnn.GnnModel;
 import app.adada.neo4j.gnn.GnnModelConfig;
+import app.adada.neo4j.gnn.ModelVersions;
+import app.adada.neo4j.gnn.dataset.CostBalancedSampler;
+import app.adada.neo4j.gnn.dataset.GnnDataset;
+import app.adada.neo4j.gnn.embedding.EmbeddingStore;
+import app.adada.neo4j.gnn.embedding.HnswIndex;
+import app.adada.neo4j.gnn.inference.ClassTranslator;
+import app.adada.neo4j.gnn.inference.EmbeddingTranslator;
+import app.adada.neo4j.gnn.inference.InferenceDispatcher;
+import app.adada.neo4j.gnn.inference.LayerwiseInference;
+import app.adada.neo4j.gnn.inference.NodeEmbeddings;
+import app.adada.neo4j.gnn.inference.PredictorPool;
+import app.adada.neo4j.gnn.inference.SampledClassification;
+import app.adada.neo4j.gnn.inference.SampledInference;
 import app.adada.neo4j.gnn.training.GraphSageUnsupervisedLoss;
+import app.adada.neo4j.gnn.training.SupervisedTrain;
+import app.adada.neo4j.gnn.training.TrainingProfile;
 import app.adada.neo4j.gnn.training.UnsupervisedTrain;
 import app.adada.neo4j.gnn.training.listener.StdoutLoggingTrainingListener;
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.NativeMemoryTracker;
 import app.adada.neo4j.util.ModelBuilder;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Concrete implementation of GnnModel for GraphSAGE.
@@ -71,10 +107,16 @@ public class GraphSageModel extends GnnModel {
     }
 
     protected static final String BUILDER_PY = PluginSettings.getInstance().builderHome + "/graph_sage.py";
+    protected static final String INFERENCE_SUFFIX = "-inference";
+    protected static final String INT8_SUFFIX = "-int8";
+
+    /** Parameter stamps by version directory; a published version is never rewritten. */
+    private static final Map<Path, Long> PARAMETER_STAMPS = new ConcurrentHashMap<>();
 
     protected final String name;
     protected final String dir;
     protected GraphSageModelConfig config;
+    protected int version = -1;
 
     public GraphSageModel(Transaction tx, String modelName) {
         super(tx, modelName);
@@ -100,69 +142,382 @@ public class GraphSageModel extends GnnModel {
             throw new RuntimeException("Configuration file already exists for model: " + modelName);
         }
 
+        switch (config.builder()) {
+            case "java":
+                // Built in-process from the configuration at train time
+                break;
+            case "python":
+                buildScriptModel();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported model builder: " + config.builder());
+        }
+
+        // Create the model configuration file
+        createModelConfig(modelConfig);
+        DirtyTracker.register(modelName, modelConfig);
+        return this;
+    }
+
+    /**
+     * Whether the model is a native {@link GraphSageBlock} rather than a
+     * TorchScript module built by {@code graph_sage.py}.
+     */
+    protected boolean isJavaBuilder() {
+        return "java".equals(config.builder());
+    }
+
+    private void buildScriptModel() {
         // Build the model using the Python script
         try {
-            List<String> command = new ArrayList<>();
-            command.add("--name");
-            command.add(name);
-            command.add("--output_dir");
-            command.add(dir);
-            command.add("--in_dim");
-            command.add(String.valueOf(config.featureDimension()));
-            command.add("--hidden_dim");
-            command.add(String.valueOf(config.hiddenDimension()));
-            command.add("--out_dim");
-            command.add(config.supervised() ? String.valueOf(config.classDimension())
-                    : String.valueOf(config.embeddingDimension()));
-            command.add("--num_layers");
-            command.add(String.valueOf(config.sampleSizes().size()));
-            command.add("--aggr");
-            command.add(config.aggregator());
-            command.add("--activ");
-            command.add(config.activationFunction());
-            command.add("--num_pre_linears");
-            command.add(String.valueOf(config.preLinearLayers()));
-            command.add("--num_post_linears");
-            command.add(String.valueOf(config.postLinearLayers()));
-            command.add("--dropout");
-            command.add(String.valueOf(config.dropoutRate()));
-            command.add("--norm");
-            command.add(config.layerNormalization() ? "layer_norm" : "none");
-
-            if (config.residualConnection()) {
-                command.add("--residual");
-            }
-            ModelBuilder.run("graph_sage.py", command);
+            ModelBuilder.run("graph_sage.py", builderArguments(dir));
         } catch (Exception e) {
             throw new RuntimeException("Failed to execute Python script", e);
         }
+    }
 
-        // Create the model configuration file
-        createModelConfig(modelConfig);
-        return this;
+    /**
+     * Arguments of {@code graph_sage.py} that rebuild this architecture.
+     */
+    private List<String> builderArguments(String outputDir) {
+        List<String> command = new ArrayList<>();
+        command.add("--name");
+        command.add(name);
+        command.add("--output_dir");
+        command.add(outputDir);
+        command.add("--in_dim");
+        command.add(String.valueOf(config.featureDimension()));
+        command.add("--hidden_dim");
+        command.add(String.valueOf(config.hiddenDimension()));
+        command.add("--out_dim");
+        command.add(config.supervised() ? String.valueOf(config.classDimension())
+                : String.valueOf(config.embeddingDimension()));
+        command.add("--num_layers");
+        command.add(String.valueOf(config.sampleSizes().size()));
+        command.add("--aggr");
+        command.add(config.aggregator());
+        command.add("--activ");
+        command.add(config.activationFunction());
+        command.add("--num_pre_linears");
+        command.add(String.valueOf(config.preLinearLayers()));
+        command.add("--num_post_linears");
+        command.add(String.valueOf(config.postLinearLayers()));
+        command.add("--dropout");
+        command.add(String.valueOf(config.dropoutRate()));
+        command.add("--norm");
+        command.add(config.layerNormalization() ? "layer_norm" : "none");
+
+        if (config.residualConnection()) {
+            command.add("--residual");
+        }
+        return command;
     }
 
+    /**
+     * Loads the configuration and pins the current parameter version, which
+     * this instance keeps using even if a newer version is published. The pin
+     * is released when the transaction closes, so lazily consumed results keep
+     * their version directory.
+     */
     public GraphSageModel load() {
         config = (GraphSageModelConfig) loadModelConfig();
+        ModelVersions.Pin pin = ModelVersions.pinCurrent(Path.of(dir), modelName);
+        version = pin.version();
+        if (tx instanceof InternalTransaction internal) {
+            internal.registerCloseableResource(pin);
+        } else {
+            pin.close();
+        }
         return this;
     }
 
-    public void delete() {
+    /**
+     * Creates the model, or loads it if it already exists with the same
+     * configuration so that it can be retrained into a new version.
+     */
+    public GraphSageModel createOrLoad(GraphSageModelConfig modelConfig) {
+        if (!Files.exists(Path.of(getModelConfigFilePath()))) {
+            return create(modelConfig);
+        }
+        load();
+        if (!config.equals(modelConfig)) {
+            throw new IllegalArgumentException("Model " + modelName
+                    + " already exists with a different configuration, drop it first");
+        }
+        return this;
+    }
+
+    /**
+     * The pinned parameter version, or -1 if the model is untrained.
+     */
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Pins the parameter version of this instance beyond its transaction, e.g.
+     * for a long-lived dispatcher.
+     */
+    public ModelVersions.Pin pinVersion() {
+        return ModelVersions.pin(Path.of(dir), version);
+    }
+
+    /**
+     * Directory of the pinned parameter version.
+     */
+    public Path versionDir() {
+        if (version < 0) {
+            throw new IllegalStateException("Model " + modelName + " has not been trained");
+        }
+        return ModelVersions.resolve(Path.of(dir), version);
+    }
+
+    @Override
+    protected GnnModelConfig parseModelConfig(String json) {
+        return GraphSageModelConfig.fromJson(json);
+    }
+
+    /**
+     * Loads the trained float32 model for inference.
+     *
+     * @see #loadInferenceModel(Device, String)
+     */
+    public Model loadInferenceModel(Device device) {
+        return loadInferenceModel(device, GraphSageInferConfig.FLOAT32);
+    }
+
+    /**
+     * Loads the trained model for inference. The caller owns the returned model.
+     *
+     * @param device    the device to run on; int8 models always run on the CPU
+     * @param precision {@link GraphSageInferConfig#FLOAT32} or
+     *                  {@link GraphSageInferConfig#INT8}
+     * @return the model with its trained parameters
+     */
+    public Model loadInferenceModel(Device device, String precision) {
+        if (config == null) {
+            throw new IllegalStateException("Model configuration is not set. Please create or load the model first.");
+        }
+        if (GraphSageInferConfig.INT8.equals(precision)) {
+            if (!Files.exists(versionDir().resolve(modelName + INT8_SUFFIX + ".pt"))) {
+                throw new IllegalStateException("Model " + modelName + " version " + version
+                        + " has no int8 artifact, run neotorch.graphsage.quantize first");
+            }
+            // Dynamically quantized kernels exist for the CPU only
+            return loadArtifact(INT8_SUFFIX, Device.cpu());
+        }
+        if (!isJavaBuilder() && Device.Type.CPU.equals(device.getDeviceType())
+                && Files.exists(versionDir().resolve(modelName + INFERENCE_SUFFIX + ".pt"))) {
+            // Trained weights are frozen into the module, which is optimized for the CPU
+            return loadArtifact(INFERENCE_SUFFIX, device);
+        }
+        return loadTrainedModel(device);
+    }
+
+    /**
+     * Loads a self-contained TorchScript artifact of the pinned version.
+     */
+    private Model loadArtifact(String suffix, Device device) {
+        try {
+            return Criteria.builder()
+                    .setTypes(NDList.class, NDList.class)
+                    .optModelPath(versionDir())
+                    .optModelName(modelName + suffix)
+                    .optEngine(PluginSettings.getInstance().engineName)
+                    .optDevice(device)
+                    .build()
+                    .loadModel();
+        } catch (ModelNotFoundException e) {
+            throw new RuntimeException("Model not found", e);
+        } catch (MalformedModelException e) {
+            throw new RuntimeException("Malformed model", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load " + modelName + suffix + ".pt", e);
+        }
+    }
+
+    /**
+     * Loads the architecture and the trained parameters of the pinned version.
+     */
+    private Model loadTrainedModel(Device device) {
+        PluginSettings settings = PluginSettings.getInstance();
+        Model model = null;
         try {
-            Files.walk(Path.of(dir))
-                    .sorted((path1, path2) -> path2.compareTo(path1)) // Delete files before directories
-                    .forEach(path -> {
-                        try {
-                            Files.deleteIfExists(path);
-                        } catch (IOException e) {
-                            throw new RuntimeException("Failed to delete path: " + path, e);
-                        }
-                    });
+            if (isJavaBuilder()) {
+                model = Model.newInstance(modelName, device, settings.engineName);
+                model.setBlock(new GraphSageBlock(config));
+            } else {
+                Criteria<NDList, NDList> criteria = Criteria.builder()
+                        .setTypes(NDList.class, NDList.class)
+                        .optModelPath(Paths.get(dir))
+                        .optEngine(settings.engineName)
+                        .optDevice(device)
+                        .build();
+                model = criteria.loadModel();
+            }
+            // Trained parameters of the pinned version
+            model.load(versionDir(), modelName);
+            return model;
+        } catch (ModelNotFoundException e) {
+            throw new RuntimeException("Model not found", e);
+        } catch (MalformedModelException e) {
+            if (model != null) {
+                model.close();
+            }
+            throw new RuntimeException("Malformed model", e);
+        } catch (IOException e) {
+            if (model != null) {
+                model.close();
+            }
+            throw new RuntimeException("Failed to load trained model " + modelName + ", has it been trained?", e);
+        }
+    }
+
+    /**
+     * Has the builder write {@code <name>-int8.pt} into the pinned version: the
+     * trained model with the weights of every linear layer, including those of
+     * the SAGE convolutions, dynamically quantized to int8.
+     *
+     * @return the written artifact
+     */
+    public Path quantize() {
+        if (config == null) {
+            throw new IllegalStateException("Model configuration is not set. Please create or load the model first.");
+        }
+        if (isJavaBuilder()) {
+            throw new IllegalArgumentException("Quantization is only supported for models built by the python builder.");
+        }
+        Path versionDir = versionDir();
+        Path trained = versionDir.resolve(modelName + "-trained.pt");
+        try (Model model = loadTrainedModel(Device.cpu())) {
+            try (OutputStream out = Files.newOutputStream(trained)) {
+                JniUtils.writeModule((PtSymbolBlock) model.getBlock(), out, false);
+            }
+            List<String> command = builderArguments(versionDir.toString());
+            command.add("--quantize");
+            ModelBuilder.run("graph_sage.py", command);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to quantize model " + modelName, e);
+        } finally {
+            try {
+                Files.deleteIfExists(trained);
+            } catch (IOException e) {
+                System.out.printf("Failed to delete %s: %s%n", trained, e.getMessage());
+            }
+        }
+        // Predictors of a previous artifact of this version
+        PredictorPool.retire(modelName, version, GraphSageInferConfig.INT8);
+        return versionDir.resolve(modelName + INT8_SUFFIX + ".pt");
+    }
+
+    /**
+     * Compares the int8 embeddings of {@code sample} with the float32 ones over
+     * the same sampled neighborhoods.
+     *
+     * @return sampleSize and the mean, minimum and 5th percentile cosine
+     *         similarity per node
+     */
+    public Map<String, Object> quantizationDrift(List<Node> sample, GraphSageInferConfig inferConfig) {
+        // Both passes must sample the same neighborhoods
+        GraphSageInferConfig seeded = inferConfig.randomSeed() != null ? inferConfig
+                : new GraphSageInferConfig(inferConfig.maxGpus(), 42L, inferConfig.batchSize(),
+                        inferConfig.precision(), inferConfig.maxNativeBytes());
+        double[] cosines = new double[sample.size()];
+        try (Stream<Prediction> exact = stream(sample, seeded.withPrecision(GraphSageInferConfig.FLOAT32));
+                Stream<Prediction> quantized = stream(sample, seeded.withPrecision(GraphSageInferConfig.INT8))) {
+            Iterator<Prediction> a = exact.iterator();
+            Iterator<Prediction> b = quantized.iterator();
+            for (int i = 0; i < cosines.length; i++) {
+                cosines[i] = cosine((float[]) a.next().predictionValue, (float[]) b.next().predictionValue);
+            }
+        }
+        Arrays.sort(cosines);
+        Map<String, Object> drift = new HashMap<>();
+        drift.put("sampleSize", (long) cosines.length);
+        drift.put("meanCosine", cosines.length == 0 ? null : Arrays.stream(cosines).average().getAsDouble());
+        drift.put("minCosine", cosines.length == 0 ? null : cosines[0]);
+        drift.put("p05Cosine", cosines.length == 0 ? null : cosines[(int) (0.05 * (cosines.length - 1))]);
+        return drift;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += (double) a[i] * b[i];
+            normA += (double) a[i] * a[i];
+            normB += (double) b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? (normA == normB ? 1 : 0) : dot / Math.sqrt(normA * normB);
+    }
+
+    /**
+     * Identifies the trained parameters, so artifacts derived from them can
+     * detect a retrained model. Listed once per version.
+     */
+    public long parametersStamp() {
+        return PARAMETER_STAMPS.computeIfAbsent(versionDir().toAbsolutePath().normalize(), this::listParametersStamp);
+    }
+
+    private long listParametersStamp(Path versionDir) {
+        try (Stream<Path> files = Files.list(versionDir)) {
+            return files.filter(path -> {
+                String file = path.getFileName().toString();
+                return file.startsWith(modelName + "-") && file.endsWith(".params");
+            }).mapToLong(path -> path.toFile().lastModified())
+                    .max()
+                    .orElseThrow(() -> new IllegalStateException("Model " + modelName + " has not been trained"));
         } catch (IOException e) {
-            throw new RuntimeException("Failed to delete model directory: " + dir, e);
+            throw new RuntimeException("Failed to list model directory: " + versionDir, e);
         }
     }
 
+    public Path embeddingStorePath() {
+        return versionDir().resolve(EmbeddingStore.FILE_NAME);
+    }
+
+    /**
+     * Opens the embedding store of the model.
+     *
+     * @throws IllegalStateException if the store was written by other parameters
+     */
+    public EmbeddingStore embeddingStore() {
+        EmbeddingStore store = EmbeddingStore.open(embeddingStorePath());
+        if (store.modelStamp() != parametersStamp()) {
+            throw new IllegalStateException("Embedding store of model " + modelName
+                    + " is stale, the model was retrained after it was written");
+        }
+        return store;
+    }
+
+    public Path hnswIndexPath() {
+        return versionDir().resolve(HnswIndex.FILE_NAME);
+    }
+
+    /**
+     * Opens the HNSW index built over the embedding store of the model.
+     */
+    public HnswIndex hnswIndex() {
+        return HnswIndex.open(hnswIndexPath(), embeddingStore());
+    }
+
+    public void delete() {
+        DirtyTracker.unregister(modelName);
+        InferenceDispatcher.closeAll(modelName);
+        PredictorPool.retire(modelName);
+        MetricsRegistry.remove(modelName);
+        List<Integer> versions = new ArrayList<>(ModelVersions.list(Path.of(dir)));
+        versions.add(0);
+        for (int v : versions) {
+            Path versionDir = ModelVersions.resolve(Path.of(dir), v);
+            EmbeddingStore.evict(versionDir.resolve(EmbeddingStore.FILE_NAME));
+            HnswIndex.evict(versionDir.resolve(HnswIndex.FILE_NAME));
+            PARAMETER_STAMPS.remove(versionDir.toAbsolutePath().normalize());
+        }
+        ModelVersions.delete(Path.of(dir));
+    }
+
     public Map<String, Object> train(GraphSageTrainConfig trainingConfig, Dataset trainingDataset,
             Dataset validateDataset) {
         if (config == null) {
@@ -170,6 +525,10 @@ public class GraphSageModel extends GnnModel {
         }
         PluginSettings settings = PluginSettings.getInstance();
 
+        if (isJavaBuilder()) {
+            return train(new GraphSageBlock(config), trainingConfig, trainingDataset, validateDataset);
+        }
+
         System.out.println(">>> Loading model from " + modelName + ".pt");
         Criteria<NDList, NDList> criteria = Criteria.builder()
                 .setTypes(NDList.class, NDList.class)
@@ -178,19 +537,38 @@ public class GraphSageModel extends GnnModel {
                 .optOption("trainParam", String.valueOf(true))
                 .build();
 
-        try (Model model = Model.newInstance(modelName, settings.engineName);
-                ZooModel<NDList, NDList> embedding = criteria.loadModel()) {
+        try (ZooModel<NDList, NDList> embedding = criteria.loadModel()) {
+            return train(embedding.getBlock(), trainingConfig, trainingDataset, validateDataset);
+        } catch (ModelNotFoundException e1) {
+            e1.printStackTrace();
+            throw new RuntimeException("Model not found", e1);
+        } catch (MalformedModelException e1) {
+            e1.printStackTrace();
+            throw new RuntimeException("Malformed model", e1);
+        } catch (IOException e1) {
+            e1.printStackTrace();
+            throw new RuntimeException("Training failed due to IO error", e1);
+        }
+    }
+
+    private Map<String, Object> train(Block block, GraphSageTrainConfig trainingConfig, Dataset trainingDataset,
+            Dataset validateDataset) {
+        PluginSettings settings = PluginSettings.getInstance();
+
+        try (Model model = Model.newInstance(modelName, settings.engineName)) {
 
             // Fix seed
             Engine.getEngine(settings.engineName).setRandomSeed(trainingConfig.randomSeed().intValue());
 
             // model
-            model.setBlock(embedding.getBlock());
-            DefaultTrainingConfig tConfig = setupTrainingConfig(dir, trainingConfig.maxGpus().intValue(),
-                    trainingConfig.learningRate().floatValue(),
+            model.setBlock(block);
+            Path staging = ModelVersions.stage(Path.of(dir));
+            DefaultTrainingConfig tConfig = setupTrainingConfig(staging.toString(),
+                    trainingConfig.maxGpus().intValue(), trainingConfig.learningRate().floatValue(),
                     trainingConfig.negativeSampleWeight().floatValue(),
-                    config.supervised());
-            try (Trainer trainer = model.newTrainer(tConfig)) {
+                    config.supervised(), true);
+            try (Trainer trainer = model.newTrainer(tConfig);
+                    MetricsRegistry.Scope scope = MetricsRegistry.bind(modelName)) {
                 trainer.setMetrics(new Metrics());
 
                 // Initialize trainer with input and output shapes
@@ -199,23 +577,36 @@ public class GraphSageModel extends GnnModel {
                 // Train
                 System.out.println(">>> Training model: " + modelName);
                 List<Float> epochLosses = new ArrayList<>();
+                NativeMemoryTracker memory = new NativeMemoryTracker("Training of " + modelName,
+                        trainer.getManager(), trainingConfig.maxNativeBytes());
+                TrainingProfile profile = new TrainingProfile(memory);
                 if (config.supervised()) {
-                    throw new UnsupportedOperationException("Supervised training is not implemented yet.");
+                    SupervisedTrain.fit(trainer, trainingConfig.epochs().intValue(), trainingDataset,
+                            validateDataset, trainingConfig.maxIterations().intValue(), epochLosses, profile);
                 } else {
                     UnsupervisedTrain.fit(trainer, trainingConfig.epochs().intValue(), trainingDataset,
-                            validateDataset, trainingConfig.maxIterations().intValue(), epochLosses);
+                            validateDataset, trainingConfig.maxIterations().intValue(), epochLosses, profile);
                 }
+                List<Map<String, Object>> openArrays = memory.finish();
 
                 // Save model
                 System.out.println(">>> Saving model parameters.");
-                model.save(Paths.get(dir), modelName);
+                model.save(staging, modelName);
+                exportInferenceModel(model.getBlock(), staging);
+                version = ModelVersions.publish(Path.of(dir), staging, PluginSettings.getInstance().keepVersions);
 
                 Map<String, Object> modelInfo = new HashMap<>();
                 modelInfo.put("name", modelName);
                 modelInfo.put("type", getModelType());
-                Map<String, Object> metrics = new HashMap<>();
+                modelInfo.put("version", version);
+                Map<String, Object> metrics = new HashMap<>(profile.toMap());
                 metrics.put("ranEpochs", trainer.getTrainingResult().getEpoch());
                 metrics.put("epochLosses", epochLosses);
+                metrics.put("openNativeArrays", openArrays);
+                if (trainingDataset instanceof GnnDataset dataset
+                        && dataset.getSampler() instanceof CostBalancedSampler balanced) {
+                    metrics.put("batchCost", balanced.report());
+                }
                 modelInfo.put("metrics", metrics);
 
                 return modelInfo;
@@ -225,29 +616,265 @@ public class GraphSageModel extends GnnModel {
             } catch (TranslateException e) {
                 e.printStackTrace();
                 throw new RuntimeException("Training failed due to translation error", e);
+            } finally {
+                // Left over only if training failed before publishing
+                ModelVersions.delete(staging);
             }
-        } catch (ModelNotFoundException e1) {
-            e1.printStackTrace();
-            throw new RuntimeException("Model not found", e1);
-        } catch (MalformedModelException e1) {
-            e1.printStackTrace();
-            throw new RuntimeException("Malformed model", e1);
-        } catch (IOException e1) {
-            e1.printStackTrace();
-            throw new RuntimeException("Training failed due to IO error", e1);
         }
     }
 
-    public void infer(Iterable<Node> nodes, Object predictConfig) {
+    /**
+     * Writes the trained TorchScript module of a Python-built model to
+     * {@code versionDir} and has the builder freeze it into
+     * {@code <name>-inference.pt} for inference. Without it inference falls
+     * back to the training module, so a failure is only logged.
+     */
+    private void exportInferenceModel(Block block, Path versionDir) {
+        if (!(block instanceof PtSymbolBlock scripted)) {
+            return;
+        }
+        Path trained = versionDir.resolve(modelName + "-trained.pt");
+        try {
+            try (OutputStream out = Files.newOutputStream(trained)) {
+                JniUtils.writeModule(scripted, out, false);
+            }
+            ModelBuilder.run("graph_sage.py",
+                    List.of("--name", name, "--output_dir", versionDir.toString(), "--freeze"));
+        } catch (IOException | RuntimeException e) {
+            System.out.printf("Failed to freeze inference model of %s: %s%n", modelName, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(trained);
+            } catch (IOException e) {
+                System.out.printf("Failed to delete %s: %s%n", trained, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Warm-starts from the pinned parameters, trains for at most
+     * {@code steps} batches of {@code dataset} and publishes the result as the
+     * next version.
+     */
+    public Map<String, Object> trainContinual(GraphSageContinualConfig continualConfig, Dataset dataset) {
         if (config == null) {
             throw new IllegalStateException("Model configuration is not set. Please create or load the model first.");
         }
-        throw new UnsupportedOperationException("Inference not implemented yet");
+        if (config.supervised()) {
+            throw new IllegalArgumentException("Continual training is only supported for unsupervised models.");
+        }
+        Path versionDir = versionDir();
+        PluginSettings settings = PluginSettings.getInstance();
+
+        ZooModel<NDList, NDList> scripted = null;
+        try (Model model = Model.newInstance(modelName, settings.engineName)) {
+            Engine.getEngine(settings.engineName).setRandomSeed(continualConfig.randomSeed().intValue());
+            if (isJavaBuilder()) {
+                model.setBlock(new GraphSageBlock(config));
+                model.load(versionDir, modelName);
+            } else {
+                scripted = Criteria.builder()
+                        .setTypes(NDList.class, NDList.class)
+                        .optModelPath(Paths.get(dir))
+                        .optEngine(settings.engineName)
+                        .optOption("trainParam", String.valueOf(true))
+                        .build()
+                        .loadModel();
+                scripted.load(versionDir, modelName);
+                scripted.getBlock().freezeParameters(false);
+                model.setBlock(scripted.getBlock());
+            }
+
+            Path staging = ModelVersions.stage(Path.of(dir));
+            DefaultTrainingConfig tConfig = setupTrainingConfig(staging.toString(),
+                    continualConfig.maxGpus().intValue(), continualConfig.learningRate().floatValue(),
+                    continualConfig.negativeSampleWeight().floatValue(), false, false);
+            try (Trainer trainer = model.newTrainer(tConfig);
+                    MetricsRegistry.Scope scope = MetricsRegistry.bind(modelName)) {
+                trainer.setMetrics(new Metrics());
+                // Loaded parameters are kept, only missing ones are initialized
+                trainer.initialize(new Shape(1, config.featureDimension()), new Shape(2, 1));
+
+                System.out.printf(">>> Continual training of %s from version %d%n", modelName, version);
+                List<Float> losses = new ArrayList<>();
+                NativeMemoryTracker memory = new NativeMemoryTracker("Continual training of " + modelName,
+                        trainer.getManager(), continualConfig.maxNativeBytes());
+                TrainingProfile profile = new TrainingProfile(memory);
+                UnsupervisedTrain.fit(trainer, 1, dataset, null, continualConfig.steps().intValue(), losses,
+                        profile);
+                List<Map<String, Object>> openArrays = memory.finish();
+
+                model.save(staging, modelName);
+                exportInferenceModel(model.getBlock(), staging);
+                version = ModelVersions.publish(Path.of(dir), staging, PluginSettings.getInstance().keepVersions);
+
+                Map<String, Object> modelInfo = new HashMap<>();
+                modelInfo.put("name", modelName);
+                modelInfo.put("type", getModelType());
+                modelInfo.put("version", version);
+                Map<String, Object> metrics = new HashMap<>(profile.toMap());
+                metrics.put("steps", continualConfig.steps());
+                metrics.put("loss", losses.isEmpty() ? null : losses.get(0));
+                metrics.put("openNativeArrays", openArrays);
+                modelInfo.put("metrics", metrics);
+                return modelInfo;
+            } finally {
+                ModelVersions.delete(staging);
+            }
+        } catch (ModelNotFoundException e) {
+            throw new RuntimeException("Model not found", e);
+        } catch (MalformedModelException e) {
+            throw new RuntimeException("Malformed model", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Continual training failed due to IO error", e);
+        } catch (TranslateException e) {
+            throw new RuntimeException("Continual training failed due to translation error", e);
+        } finally {
+            if (scripted != null) {
+                scripted.close();
+            }
+        }
+    }
+
+    @Override
+    public Stream<Prediction> infer(List<Node> nodes, Object inferConfig) {
+        if (!(inferConfig instanceof GraphSageInferConfig)) {
+            throw new IllegalArgumentException("Invalid inference configuration type for GraphSAGE.");
+        }
+        return infer(nodes, (GraphSageInferConfig) inferConfig);
+    }
+
+    /**
+     * Computes exact embeddings of the whole model graph layer by layer and
+     * returns those of {@code nodes}.
+     */
+    @SuppressWarnings("removal")
+    public Stream<Prediction> infer(List<Node> nodes, GraphSageInferConfig inferConfig) {
+        if (config == null) {
+            throw new IllegalStateException("Model configuration is not set. Please create or load the model first.");
+        }
+        PluginSettings settings = PluginSettings.getInstance();
+        Device device = Engine.getEngine(settings.engineName).getDevices(inferConfig.maxGpus().intValue())[0];
+
+        List<Prediction> predictions = new ArrayList<>(nodes.size());
+        try (Model model = loadInferenceModel(device, inferConfig.precision());
+                NDManager manager = model.getNDManager().newSubManager();
+                MetricsRegistry.Scope scope = MetricsRegistry.bind(modelName)) {
+            GraphSageLayers layers = GraphSageLayers.of(model.getBlock(), config.sampleSizes().size());
+            NativeMemoryTracker memory = new NativeMemoryTracker("Inference of " + modelName, manager,
+                    inferConfig.maxNativeBytes());
+            LayerwiseInference inference = new LayerwiseInference(tx, config, layers, manager, memory,
+                    inferConfig.batchSize().intValue());
+            try (NodeEmbeddings embeddings = inference.run()) {
+                for (Node node : nodes) {
+                    predictions.add(new Prediction(node.getId(), embeddings.get(node.getId())));
+                }
+            }
+            memory.finish();
+        }
+        return predictions.stream();
+    }
+
+    /**
+     * Lazily embeds {@code nodes} batch by batch over sampled neighborhoods.
+     * The pooled predictor is returned when the returned stream is closed.
+     */
+    public Stream<Prediction> stream(List<Node> nodes, GraphSageInferConfig inferConfig) {
+        if (config == null) {
+            throw new IllegalStateException("Model configuration is not set. Please create or load the model first.");
+        }
+        PluginSettings settings = PluginSettings.getInstance();
+        Device device = Engine.getEngine(settings.engineName).getDevices(inferConfig.maxGpus().intValue())[0];
+        NeighborSampler sampler = (inferConfig.randomSeed() == null ? new NeighborSampler()
+                : new NeighborSampler(inferConfig.randomSeed()))
+                .withBudget(config.maxSampledNodes(), config.maxSampledEdges());
+
+        PredictorPool.Lease<EmbeddingTranslator.Input, float[][]> lease = PredictorPool.borrow(this, device,
+                inferConfig.precision());
+        SampledInference inference = new SampledInference(lease.predictor(), config, sampler, nodes,
+                inferConfig.batchSize().intValue());
+        return StreamSupport.stream(Spliterators.spliterator(MetricsRegistry.bind(modelName, inference), nodes.size(),
+                Spliterator.ORDERED), false)
+                .onClose(lease::close);
+    }
+
+    /**
+     * Lazily classifies {@code nodes} batch by batch over sampled neighborhoods,
+     * like {@link #stream}.
+     *
+     * @param k the number of most probable classes per node
+     */
+    public Stream<SampledClassification.NodeClasses> classify(List<Node> nodes, GraphSageInferConfig inferConfig,
+            int k) {
+        if (config == null) {
+            throw new IllegalStateException("Model configuration is not set. Please create or load the model first.");
+        }
+        if (!config.supervised()) {
+            throw new IllegalStateException("Model " + modelName + " is not a supervised classification model");
+        }
+        if (k < 1) {
+            throw new IllegalArgumentException("`topK` must be a positive number");
+        }
+        PluginSettings settings = PluginSettings.getInstance();
+        Device device = Engine.getEngine(settings.engineName).getDevices(inferConfig.maxGpus().intValue())[0];
+        NeighborSampler sampler = (inferConfig.randomSeed() == null ? new NeighborSampler()
+                : new NeighborSampler(inferConfig.randomSeed()))
+                .withBudget(config.maxSampledNodes(), config.maxSampledEdges());
+
+        PredictorPool.Lease<ClassTranslator.Input, ClassTranslator.TopClasses> lease = PredictorPool.borrow(this,
+                device, inferConfig.precision(), new ClassTranslator());
+        SampledClassification classification = new SampledClassification(lease.predictor(), config, sampler, nodes,
+                inferConfig.batchSize().intValue(), k);
+        return StreamSupport.stream(Spliterators.spliterator(MetricsRegistry.bind(modelName, classification),
+                nodes.size(), Spliterator.ORDERED), false)
+                .onClose(lease::close);
+    }
+
+    /**
+     * Scores candidate links by the sigmoid of the inner product of their
+     * endpoint embeddings, as in the unsupervised loss.
+     *
+     * @param nodes       distinct endpoint nodes, each embedded once
+     * @param sources     source rows into {@code nodes}
+     * @param targets     target rows into {@code nodes}, same length as sources
+     * @param inferConfig device and sampling of the embeddings
+     * @param batchSize   pairs scored per tensor batch
+     * @return one probability per pair
+     */
+    public float[] scoreLinks(List<Node> nodes, long[] sources, long[] targets, GraphSageInferConfig inferConfig,
+            int batchSize) {
+        float[][] embeddings = new float[nodes.size()][];
+        try (Stream<Prediction> predictions = stream(nodes, inferConfig)) {
+            Iterator<Prediction> iterator = predictions.iterator();
+            for (int i = 0; i < embeddings.length; i++) {
+                embeddings[i] = (float[]) iterator.next().predictionValue;
+            }
+        }
+
+        PluginSettings settings = PluginSettings.getInstance();
+        Device device = Engine.getEngine(settings.engineName).getDevices(inferConfig.maxGpus().intValue())[0];
+        float[] scores = new float[sources.length];
+        try (NDManager manager = NDManager.newBaseManager(device, settings.engineName)) {
+            NDArray matrix = manager.create(embeddings);
+            for (int start = 0; start < sources.length; start += batchSize) {
+                int end = Math.min(start + batchSize, sources.length);
+                try (NDManager batch = manager.newSubManager()) {
+                    // Intermediates follow the manager of the matrix, so lend it to the batch
+                    batch.tempAttachAll(matrix);
+                    NDArray u = batch.create(Arrays.copyOfRange(sources, start, end));
+                    NDArray v = batch.create(Arrays.copyOfRange(targets, start, end));
+                    float[] chunk = Activation.sigmoid(GraphSageUnsupervisedLoss.linkLogits(matrix, u, v))
+                            .toFloatArray();
+                    System.arraycopy(chunk, 0, scores, start, chunk.length);
+                }
+            }
+        }
+        return scores;
     }
 
     private static DefaultTrainingConfig setupTrainingConfig(String outputDir, int maxGpus, float lr,
             float negativeSampleWeight,
-            boolean supervised) {
+            boolean supervised, boolean saveEpochs) {
 
         PluginSettings settings = PluginSettings.getInstance();
 
@@ -261,23 +888,26 @@ public class GraphSageModel extends GnnModel {
                     model.setProperty("Loss", String.format("%.5f", result.getValidateLoss()));
                 });
 
-        TrainingListener[] listeners = new TrainingListener[] {
+        List<TrainingListener> listeners = new ArrayList<>(List.of(
                 new EpochTrainingListener(),
                 new MemoryTrainingListener(outputDir),
                 new EvaluatorTrainingListener(1),
                 // new DivergenceCheckTrainingListener(),
                 new StdoutLoggingTrainingListener(),
-                new TimeMeasureTrainingListener(outputDir),
-                saveListener
-        };
+                new TimeMeasureTrainingListener(outputDir)));
+        if (saveEpochs) {
+            listeners.add(saveListener);
+        }
 
         DefaultTrainingConfig config = new DefaultTrainingConfig(
                 supervised ? new SoftmaxCrossEntropyLoss()
                         : new GraphSageUnsupervisedLoss("Loss", negativeSampleWeight))
-                // .addEvaluator(new Accuracy())
                 .optDevices(Engine.getEngine(settings.engineName).getDevices(maxGpus))
                 // .optExecutorService()
-                .addTrainingListeners(listeners);
+                .addTrainingListeners(listeners.toArray(TrainingListener[]::new));
+        if (supervised) {
+            config.addEvaluator(new Accuracy());
+        }
 
         // Customized learning rate support
         /*
@@ -20,13 +20,40 @@ public record GraphSageModelConfig(
         Long classDimension,
         Long hiddenDimension,
         List<Long> sampleSizes,
+        Long maxSampledNodes,
+        Long maxSampledEdges,
         String aggregator,
         String activationFunction,
         Long preLinearLayers,
         Long postLinearLayers,
         Float dropoutRate,
         Boolean layerNormalization,
-        Boolean residualConnection) implements GnnModelConfig {
+        Boolean residualConnection,
+        String builder) implements GnnModelConfig {
+
+    public GraphSageModelConfig {
+        // Absent from the configuration of models saved before the budget
+        maxSampledNodes = maxSampledNodes == null ? 0L : maxSampledNodes;
+        maxSampledEdges = maxSampledEdges == null ? 0L : maxSampledEdges;
+        // and of models saved before the java builder, which were all built by python
+        builder = builder == null ? "python" : builder;
+        if (maxSampledNodes < 0 || maxSampledEdges < 0) {
+            throw new IllegalArgumentException("`maxSampledNodes` and `maxSampledEdges` must not be negative");
+        }
+        if (Boolean.TRUE.equals(residualConnection) && sampleSizes != null) {
+            // Every layer adds its input to its output, as in graph_sage.py
+            long outDim = Boolean.TRUE.equals(supervised) ? classDimension : embeddingDimension;
+            for (int i = 0; i < sampleSizes.size(); i++) {
+                long layerIn = i == 0 && preLinearLayers == 0 ? featureDimension : hiddenDimension;
+                long layerOut = i == sampleSizes.size() - 1 && postLinearLayers == 0 ? outDim : hiddenDimension;
+                if (layerIn != layerOut) {
+                    throw new IllegalArgumentException(String.format(
+                            "`residualConnection` needs equal input and output dimensions, but layer %d maps %d to %d",
+                            i, layerIn, layerOut));
+                }
+            }
+        }
+    }
 
     public static GraphSageModelConfig fromMap(Map<String, Object> config) {
         if (config.get("featureProperties") == null) {
@@ -43,16 +70,19 @@ public record GraphSageModelConfig(
                 TypeParser.parse(config.get("supervised"), Boolean.class, false),
                 TypeParser.parse(config.get("embeddingDimension"), Long.class, 64L),
                 TypeParser.parse(config.get("classProperties"), String.class, "y"),
-                TypeParser.parse(config.get("classDimension"), Long.class, 1L),
+                TypeParser.parse(config.get("classDimension"), Long.class, 2L),
                 TypeParser.parse(config.get("hiddenDimension"), Long.class, 1024L),
                 TypeParser.parseList(config.get("sampleSizes"), Long.class, List.of(10L, 5L)),
+                TypeParser.parse(config.get("maxSampledNodes"), Long.class, 0L),
+                TypeParser.parse(config.get("maxSampledEdges"), Long.class, 0L),
                 TypeParser.parse(config.get("aggregator"), String.class, "mean"),
                 TypeParser.parse(config.get("activationFunction"), String.class, "relu"),
                 TypeParser.parse(config.get("preLinearLayers"), Long.class, 0L),
                 TypeParser.parse(config.get("postLinearLayers"), Long.class, 0L),
                 TypeParser.parse(config.get("dropoutRate"), Float.class, 0.0f),
                 TypeParser.parse(config.get("layerNormalization"), Boolean.class, false),
-                TypeParser.parse(config.get("residualConnection"), Boolean.class, false));
+                TypeParser.parse(config.get("residualConnection"), Boolean.class, false),
+                TypeParser.parse(config.get("builder"), String.class, "python"));
     }
 
     public static GraphSageModelConfig fromJson(String json) {
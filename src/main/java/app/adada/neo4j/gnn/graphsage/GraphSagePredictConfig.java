@@ -0,0 +1,14 @@
+package app.adada.neo4j.gnn.graphsage;
+
+import java.util.Map;
+
+import app.adada.neo4j.util.TypeParser;
+
+public record GraphSagePredictConfig(
+        Long topK) {
+
+    public static GraphSagePredictConfig fromMap(Map<String, Object> config) {
+        return new GraphSagePredictConfig(
+                TypeParser.parse(config.get("topK"), Long.class, 1L));
+    }
+}
@@ -0,0 +1,14 @@
+package app.adada.neo4j.gnn.graphsage;
+
+import java.util.Map;
+
+import app.adada.neo4j.util.TypeParser;
+
+public record GraphSageQuantizeConfig(
+        Long driftSampleSize) {
+
+    public static GraphSageQuantizeConfig fromMap(Map<String, Object> config) {
+        return new GraphSageQuantizeConfig(
+                TypeParser.parse(config.get("driftSampleSize"), Long.class, 1000L));
+    }
+}
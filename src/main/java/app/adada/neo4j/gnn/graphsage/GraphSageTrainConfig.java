@@ -13,7 +13,20 @@ public record GraphSageTrainConfig(
         Long maxIterations,
         String optimizer,
         Double learningRate,
-        Double negativeSampleWeight) {
+        Double negativeSampleWeight,
+        Boolean quantize,
+        Long maxNativeBytes,
+        String batchComposition) {
+
+    public static final String RANDOM = "random";
+    /** Batches of about equal expansion cost, see {@code CostBalancedSampler}. */
+    public static final String BALANCED = "balanced";
+
+    public GraphSageTrainConfig {
+        if (!RANDOM.equals(batchComposition) && !BALANCED.equals(batchComposition)) {
+            throw new IllegalArgumentException("`batchComposition` must be \"" + RANDOM + "\" or \"" + BALANCED + "\"");
+        }
+    }
 
     public static GraphSageTrainConfig fromMap(Map<String, Object> config) {
         return new GraphSageTrainConfig(
@@ -24,6 +37,9 @@ public record GraphSageTrainConfig(
                 TypeParser.parse(config.get("maxIterations"), Long.class, 10L),
                 TypeParser.parse(config.get("optimizer"), String.class, "adam"),
                 TypeParser.parse(config.get("learningRate"), Double.class, 0.001),
-                TypeParser.parse(config.get("negativeSampleWeight"), Double.class, 1.0));
+                TypeParser.parse(config.get("negativeSampleWeight"), Double.class, 1.0),
+                TypeParser.parse(config.get("quantize"), Boolean.class, false),
+                TypeParser.parse(config.get("maxNativeBytes"), Long.class, 0L),
+                TypeParser.parse(config.get("batchComposition"), String.class, RANDOM));
     }
 }
@@ -0,0 +1,25 @@
+package app.adada.neo4j.gnn.graphsage;
+
+import java.util.Map;
+
+import app.adada.neo4j.util.TypeParser;
+
+public record GraphSageWriteConfig(
+        String writeProperty,
+        Long writeConcurrency,
+        Long writeBatchSize,
+        Boolean vectorIndex,
+        String vectorSimilarity) {
+
+    public static GraphSageWriteConfig fromMap(Map<String, Object> config) {
+        if (config.get("writeProperty") == null) {
+            throw new IllegalArgumentException("`writeProperty` must be provided in the configuration");
+        }
+        return new GraphSageWriteConfig(
+                TypeParser.parse(config.get("writeProperty"), String.class),
+                TypeParser.parse(config.get("writeConcurrency"), Long.class, 4L),
+                TypeParser.parse(config.get("writeBatchSize"), Long.class, 10000L),
+                TypeParser.parse(config.get("vectorIndex"), Boolean.class, false),
+                TypeParser.parse(config.get("vectorSimilarity"), String.class, "cosine"));
+    }
+}
@@ -0,0 +1,167 @@
+package app.adada.neo4j.gnn.graphsage;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDArrays;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.nn.AbstractBlock;
+import ai.djl.nn.core.Linear;
+import ai.djl.training.ParameterStore;
+import ai.djl.util.PairList;
+
+import java.util.Arrays;
+
+/**
+ * Native DJL implementation of PyG's {@code SAGEConv}.
+ *
+ * <p>
+ * {@code out = lin_l(aggr(x_j)) + lin_r(x_i)}, where {@code x_j} are the
+ * incoming neighbors of {@code x_i} along {@code edge_index[0] -> edge_index[1]}.
+ *
+ * <p>
+ * DJL has no scatter-add / scatter-reduce, so the aggregation gathers every
+ * neighbor row into a padded {@code [nodes, degree, d]} tensor and reduces the
+ * degree axis. Nodes are padded in degree-sorted groups so that one hub does not
+ * pad the whole graph to its degree.
+ */
+public class SageConv extends AbstractBlock {
+
+    private static final byte VERSION = 1;
+
+    /** Upper bound of gathered rows (nodes x padded degree) per aggregation group. */
+    private static final long GROUP_SLOTS = 1L << 20;
+
+    private final String aggregator;
+    private final long outDim;
+    private final Linear linNeighbor;
+    private final Linear linRoot;
+
+    public SageConv(long outDim, String aggregator) {
+        super(VERSION);
+        if (!"mean".equals(aggregator) && !"max".equals(aggregator)) {
+            throw new IllegalArgumentException("Unsupported aggregator for java builder: " + aggregator);
+        }
+        this.aggregator = aggregator;
+        this.outDim = outDim;
+        this.linNeighbor = addChildBlock("lin_l", Linear.builder().setUnits(outDim).optBias(true).build());
+        this.linRoot = addChildBlock("lin_r", Linear.builder().setUnits(outDim).optBias(false).build());
+    }
+
+    @Override
+    protected NDList forwardInternal(ParameterStore parameterStore, NDList inputs, boolean training,
+            PairList<String, Object> params) {
+        NDArray x = inputs.get(0);
+        NDArray edgeIndex = inputs.get(1);
+        NDArray aggregated = aggregate(x, edgeIndex, aggregator);
+        NDArray neighbor = linNeighbor.forward(parameterStore, new NDList(aggregated), training).singletonOrThrow();
+        NDArray root = linRoot.forward(parameterStore, new NDList(x), training).singletonOrThrow();
+        return new NDList(neighbor.add(root));
+    }
+
+    @Override
+    public Shape[] getOutputShapes(Shape[] inputShapes) {
+        return new Shape[] { new Shape(inputShapes[0].get(0), outDim) };
+    }
+
+    @Override
+    protected void initializeChildBlocks(NDManager manager, DataType dataType, Shape... inputShapes) {
+        linNeighbor.initialize(manager, dataType, inputShapes[0]);
+        linRoot.initialize(manager, dataType, inputShapes[0]);
+    }
+
+    /**
+     * Aggregates incoming neighbor rows of {@code x} for every node.
+     *
+     * @param x          node features [N, d]
+     * @param edgeIndex  edges [2, E] as (source, target)
+     * @param aggregator "mean" or "max"
+     * @return aggregated features [N, d]; zero for nodes without neighbors
+     */
+    public static NDArray aggregate(NDArray x, NDArray edgeIndex, String aggregator) {
+        NDManager manager = x.getManager();
+        int n = Math.toIntExact(x.getShape().get(0));
+        long d = x.getShape().get(1);
+        if (n == 0) {
+            return x.duplicate();
+        }
+        long[] src = edgeIndex.get(0).toLongArray();
+        long[] dst = edgeIndex.get(1).toLongArray();
+
+        // CSR by target node
+        int[] offsets = new int[n + 1];
+        for (long t : dst) {
+            offsets[(int) t + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        long[] neighbors = new long[src.length];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < src.length; e++) {
+            neighbors[cursor[(int) dst[e]]++] = src[e];
+        }
+
+        // Nodes ordered by descending degree, so each group pads to its first node;
+        // a counting sort, as degrees are bounded by the edge count
+        int maxDegree = 0;
+        for (int i = 0; i < n; i++) {
+            maxDegree = Math.max(maxDegree, offsets[i + 1] - offsets[i]);
+        }
+        int[] slots = new int[maxDegree + 2];
+        for (int i = 0; i < n; i++) {
+            slots[maxDegree - (offsets[i + 1] - offsets[i]) + 1]++;
+        }
+        for (int k = 0; k <= maxDegree; k++) {
+            slots[k + 1] += slots[k];
+        }
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[slots[maxDegree - (offsets[i + 1] - offsets[i])]++] = i;
+        }
+
+        boolean max = "max".equals(aggregator);
+        NDArray sentinel = max ? manager.full(new Shape(1, d), -Float.MAX_VALUE, x.getDataType())
+                : manager.zeros(new Shape(1, d), x.getDataType());
+        NDArray padded = x.concat(sentinel, 0); // row n is the padding row
+
+        NDList groups = new NDList();
+        long[] permutation = new long[n];
+        int start = 0;
+        while (start < n) {
+            int width = Math.max(1, offsets[order[start] + 1] - offsets[order[start]]);
+            int size = (int) Math.max(1, Math.min(n - start, GROUP_SLOTS / width));
+            long[] table = new long[size * width];
+            float[] degree = new float[size];
+            Arrays.fill(table, n);
+            for (int i = 0; i < size; i++) {
+                int node = order[start + i];
+                int deg = offsets[node + 1] - offsets[node];
+                System.arraycopy(neighbors, offsets[node], table, i * width, deg);
+                degree[i] = deg;
+                permutation[start + i] = node;
+            }
+            NDArray gathered = padded.get(manager.create(table)).reshape(size, width, d);
+            NDArray reduced;
+            if (max) {
+                NDArray hasNeighbor = manager.create(degree, new Shape(size, 1)).gt(0);
+                reduced = NDArrays.where(hasNeighbor, gathered.max(new int[] { 1 }),
+                        manager.zeros(new Shape(size, d), x.getDataType()));
+            } else {
+                NDArray denominator = manager.create(degree, new Shape(size, 1)).maximum(1f);
+                reduced = gathered.sum(new int[] { 1 }).div(denominator);
+            }
+            groups.add(reduced);
+            start += size;
+        }
+
+        // Undo the degree ordering
+        long[] inverse = new long[n];
+        for (int i = 0; i < n; i++) {
+            inverse[(int) permutation[i]] = i;
+        }
+        NDArray ordered = groups.size() == 1 ? groups.get(0) : NDArrays.concat(groups, 0);
+        return ordered.get(manager.create(inverse));
+    }
+}
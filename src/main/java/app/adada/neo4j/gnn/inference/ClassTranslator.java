@@ -0,0 +1,70 @@
+package app.adada.neo4j.gnn.inference;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.translate.TranslatorContext;
+import app.adada.neo4j.algo.DenseGraph;
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.Stage;
+
+/**
+ * Translates a sampled subgraph into model inputs and returns the top-k
+ * classes of its first {@code targets} nodes.
+ *
+ * <p>
+ * Softmax and top-k run on the output tensor; only {@code targets * k}
+ * classes and probabilities are copied to the heap.
+ */
+public class ClassTranslator
+        implements PredictorPool.PooledTranslator<ClassTranslator.Input, ClassTranslator.TopClasses> {
+
+    private static final String TARGETS = "targets";
+    private static final String FORWARD_START = "forwardStart";
+    private static final String K = "k";
+
+    /**
+     * @param graph   the sampled subgraph; batch nodes are its first rows
+     * @param targets the number of batch nodes
+     * @param k       the number of classes per node, at most the class dimension
+     */
+    public record Input(DenseGraph graph, int targets, int k) {
+    }
+
+    /**
+     * Row-major {@code [targets, k]} classes and probabilities, most probable
+     * first.
+     */
+    public record TopClasses(int k, long[] classes, float[] probabilities) {
+    }
+
+    @Override
+    public Input warmUpInput(DenseGraph graph) {
+        return new Input(graph, 1, 1);
+    }
+
+    @Override
+    public NDList processInput(TranslatorContext ctx, Input input) {
+        NDManager manager = ctx.getNDManager();
+        ctx.setAttachment(TARGETS, input.targets());
+        ctx.setAttachment(K, input.k());
+        long start = System.nanoTime();
+        NDArray x = manager.create(input.graph().getFeatures());
+        NDArray edgeIndex = manager.create(input.graph().getEdges());
+        MetricsRegistry.record(Stage.NDARRAY_CREATION, start, input.graph().byteSize());
+        ctx.setAttachment(FORWARD_START, System.nanoTime());
+        return new NDList(x, edgeIndex);
+    }
+
+    @Override
+    public TopClasses processOutput(TranslatorContext ctx, NDList list) {
+        int targets = (Integer) ctx.getAttachment(TARGETS);
+        MetricsRegistry.record(Stage.FORWARD, (Long) ctx.getAttachment(FORWARD_START),
+                list.get(0).getShape().get(0));
+        int classDim = (int) list.get(0).getShape().get(1);
+        int k = Math.min((Integer) ctx.getAttachment(K), classDim);
+        NDArray probabilities = list.get(0).get("0:" + targets).softmax(1);
+        NDList top = probabilities.topK(k, 1, true, true);
+        return new TopClasses(k, top.get(1).toLongArray(), top.get(0).toFloatArray());
+    }
+}
@@ -0,0 +1,62 @@
+package app.adada.neo4j.gnn.inference;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.translate.TranslatorContext;
+import app.adada.neo4j.algo.DenseGraph;
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.Stage;
+
+/**
+ * Translates a sampled subgraph into model inputs and returns the output rows
+ * of its first {@code targets} nodes (the batch nodes).
+ *
+ * <p>
+ * Output rows are copied to the heap inside the predictor context, so no
+ * NDArray outlives the call.
+ */
+public class EmbeddingTranslator implements PredictorPool.PooledTranslator<EmbeddingTranslator.Input, float[][]> {
+
+    private static final String TARGETS = "targets";
+    private static final String FORWARD_START = "forwardStart";
+
+    /**
+     * @param graph   the sampled subgraph; batch nodes are its first rows
+     * @param targets the number of batch nodes
+     */
+    public record Input(DenseGraph graph, int targets) {
+    }
+
+    @Override
+    public Input warmUpInput(DenseGraph graph) {
+        return new Input(graph, 1);
+    }
+
+    @Override
+    public NDList processInput(TranslatorContext ctx, Input input) {
+        NDManager manager = ctx.getNDManager();
+        ctx.setAttachment(TARGETS, input.targets());
+        long start = System.nanoTime();
+        NDArray x = manager.create(input.graph().getFeatures());
+        NDArray edgeIndex = manager.create(input.graph().getEdges());
+        MetricsRegistry.record(Stage.NDARRAY_CREATION, start, input.graph().byteSize());
+        ctx.setAttachment(FORWARD_START, System.nanoTime());
+        return new NDList(x, edgeIndex);
+    }
+
+    @Override
+    public float[][] processOutput(TranslatorContext ctx, NDList list) {
+        int targets = (Integer) ctx.getAttachment(TARGETS);
+        MetricsRegistry.record(Stage.FORWARD, (Long) ctx.getAttachment(FORWARD_START),
+                list.get(0).getShape().get(0));
+        NDArray out = list.get(0);
+        int dim = (int) out.getShape().get(1);
+        float[] flat = out.get("0:" + targets).toFloatArray();
+        float[][] rows = new float[targets][dim];
+        for (int i = 0; i < targets; i++) {
+            System.arraycopy(flat, i * dim, rows[i], 0, dim);
+        }
+        return rows;
+    }
+}
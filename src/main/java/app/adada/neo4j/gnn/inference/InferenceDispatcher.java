@@ -0,0 +1,313 @@
+package app.adada.neo4j.gnn.inference;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Transaction;
+
+import ai.djl.Device;
+import ai.djl.engine.Engine;
+import app.adada.neo4j.algo.DenseGraph;
+import app.adada.neo4j.algo.NeighborSampler;
+import app.adada.neo4j.config.PluginSettings;
+import app.adada.neo4j.gnn.ModelVersions;
+import app.adada.neo4j.gnn.graphsage.GraphSageInferConfig;
+import app.adada.neo4j.gnn.graphsage.GraphSageModel;
+import app.adada.neo4j.gnn.graphsage.GraphSageModelConfig;
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.util.Histogram;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Coalesces concurrent embedding requests for one model into shared forward
+ * passes.
+ *
+ * <p>
+ * A single dispatcher thread waits for the first queued request, then keeps
+ * collecting requests until the earliest deadline of the collected requests,
+ * each queued time plus its {@code maxDelayMicros}, or until the smallest
+ * {@code maxBatchNodes} among them is pending. The distinct nodes of all
+ * collected requests are sampled as one subgraph, so overlapping
+ * neighborhoods are read once, and the rows are scattered back to the
+ * callers. The graph is read in the dispatcher's own transaction, and each
+ * batch runs on a predictor borrowed from the model's {@link PredictorPool}.
+ *
+ * <p>
+ * Dispatchers are keyed by database, model, version, precision, device and
+ * sampling seed, so a call always runs on the version it pinned with its own
+ * settings. Starting the dispatcher of a version stops those of older versions
+ * of the model; all dispatchers of a database stop with the database.
+ */
+public class InferenceDispatcher implements AutoCloseable {
+
+    private static final Map<String, InferenceDispatcher> DISPATCHERS = new ConcurrentHashMap<>();
+
+    private record Request(long[] nodeIds, CompletableFuture<float[][]> result, long queuedNanos,
+            long maxDelayNanos, int maxBatchNodes) {
+    }
+
+    private final String name;
+    private final String databaseName;
+    private final String modelName;
+    private final int version;
+    private final ModelVersions.Pin pin;
+    private final GraphDatabaseService db;
+    private final GraphSageModelConfig config;
+    private final NeighborSampler sampler;
+    private final GraphSageModel sageModel;
+    private final Device device;
+    private final String precision;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final Histogram batchNodes = new Histogram();
+    private final Histogram queueWaitMicros = new Histogram();
+
+    private InferenceDispatcher(String name, GraphDatabaseService db, GraphSageModel sageModel,
+            GraphSageInferConfig inferConfig) {
+        this.name = name;
+        this.databaseName = db.databaseName();
+        this.modelName = sageModel.getModelName();
+        this.version = sageModel.version();
+        this.pin = sageModel.pinVersion();
+        this.db = db;
+        this.config = sageModel.config();
+        this.sampler = (inferConfig.randomSeed() == null ? new NeighborSampler()
+                : new NeighborSampler(inferConfig.randomSeed()))
+                .withBudget(config.maxSampledNodes(), config.maxSampledEdges());
+        PluginSettings settings = PluginSettings.getInstance();
+        this.sageModel = sageModel;
+        this.device = Engine.getEngine(settings.engineName).getDevices(inferConfig.maxGpus().intValue())[0];
+        this.precision = inferConfig.precision();
+        this.thread = new Thread(this::run, "neotorch-dispatcher-" + name);
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Returns the dispatcher of the pinned version of a loaded model, starting
+     * one if needed.
+     *
+     * @param db          the database to read the graph from
+     * @param sageModel   the loaded model
+     * @param inferConfig device, sampling seed and precision; each combination
+     *                    has its own dispatcher
+     */
+    public static InferenceDispatcher forModel(GraphDatabaseService db, GraphSageModel sageModel,
+            GraphSageInferConfig inferConfig) {
+        String databaseName = db.databaseName();
+        String modelName = sageModel.getModelName();
+        int version = sageModel.version();
+        String name = databaseName + "/" + modelName + "/v" + version + "@" + inferConfig.precision()
+                + "/gpus" + inferConfig.maxGpus()
+                + (inferConfig.randomSeed() == null ? "" : "/seed" + inferConfig.randomSeed());
+        // Swapped inside compute, but started and closed outside it, as closing joins the old thread
+        InferenceDispatcher[] created = new InferenceDispatcher[1];
+        InferenceDispatcher dispatcher = DISPATCHERS.compute(name, (key, existing) -> {
+            if (existing != null && existing.running) {
+                return existing;
+            }
+            created[0] = new InferenceDispatcher(key, db, sageModel, inferConfig);
+            return created[0];
+        });
+        if (created[0] != null) {
+            created[0].thread.start();
+            // Dispatchers of older versions stop, failing only requests still queued
+            closeIf(old -> old.databaseName.equals(databaseName) && old.modelName.equals(modelName)
+                    && old.version < version);
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Stops the dispatchers of a model, e.g. when it is dropped.
+     */
+    public static void closeAll(String modelName) {
+        closeIf(dispatcher -> dispatcher.modelName.equals(modelName));
+    }
+
+    /**
+     * Stops the dispatchers of a database, e.g. when it is stopped.
+     */
+    public static void closeDatabase(String databaseName) {
+        closeIf(dispatcher -> dispatcher.databaseName.equals(databaseName));
+    }
+
+    private static void closeIf(Predicate<InferenceDispatcher> condition) {
+        List<InferenceDispatcher> removed = new ArrayList<>();
+        DISPATCHERS.values().removeIf(dispatcher -> {
+            if (condition.test(dispatcher)) {
+                removed.add(dispatcher);
+                return true;
+            }
+            return false;
+        });
+        removed.forEach(InferenceDispatcher::close);
+    }
+
+    public static Map<String, InferenceDispatcher> all() {
+        return Map.copyOf(DISPATCHERS);
+    }
+
+    /**
+     * Embeds the nodes with the given internal ids, waiting for the batch they
+     * are coalesced into.
+     *
+     * @param nodeIds        internal ids of the nodes
+     * @param maxDelayMicros how long this request waits for more requests
+     * @param maxBatchNodes  node count that dispatches its batch immediately
+     * @return one row per id, in order
+     */
+    public float[][] embed(long[] nodeIds, long maxDelayMicros, int maxBatchNodes) {
+        if (!running) {
+            throw new IllegalStateException("Inference dispatcher " + name + " is closed");
+        }
+        Request request = new Request(nodeIds, new CompletableFuture<>(), System.nanoTime(),
+                TimeUnit.MICROSECONDS.toNanos(maxDelayMicros), maxBatchNodes);
+        requests.incrementAndGet();
+        queue.add(request);
+        // Closed meanwhile: the dispatcher may have drained the queue already
+        if (!running && queue.remove(request)) {
+            throw new IllegalStateException("Inference dispatcher " + name + " is closed");
+        }
+        try {
+            return request.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for embeddings", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Coalesced inference failed", e.getCause());
+        }
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>();
+        MetricsRegistry.bind(modelName); // for the lifetime of the thread
+        while (running) {
+            try {
+                Request first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                int pending = first.nodeIds().length;
+                long deadline = first.queuedNanos() + first.maxDelayNanos();
+                int maxBatchNodes = first.maxBatchNodes();
+                while (pending < maxBatchNodes) {
+                    long wait = deadline - System.nanoTime();
+                    Request next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    pending += next.nodeIds().length;
+                    deadline = Math.min(deadline, next.queuedNanos() + next.maxDelayNanos());
+                    maxBatchNodes = Math.min(maxBatchNodes, next.maxBatchNodes());
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                batch.forEach(request -> request.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.result().completeExceptionally(
+                    new IllegalStateException("Inference dispatcher " + name + " was closed"));
+        }
+    }
+
+    @SuppressWarnings("removal")
+    private void dispatch(List<Request> batch) {
+        long now = System.nanoTime();
+        for (Request request : batch) {
+            queueWaitMicros.record(TimeUnit.NANOSECONDS.toMicros(now - request.queuedNanos()));
+        }
+        try (Transaction tx = db.beginTx();
+                PredictorPool.Lease<EmbeddingTranslator.Input, float[][]> lease = PredictorPool.borrow(sageModel,
+                        device, precision)) {
+            // Distinct nodes become the first rows of the shared subgraph
+            Map<Long, Integer> rows = new HashMap<>();
+            List<Node> targets = new ArrayList<>();
+            List<Request> valid = new ArrayList<>(batch.size());
+            for (Request request : batch) {
+                try {
+                    for (long id : request.nodeIds()) {
+                        if (!rows.containsKey(id)) {
+                            targets.add(tx.getNodeById(id));
+                            rows.put(id, rows.size());
+                        }
+                    }
+                    valid.add(request);
+                } catch (NotFoundException e) {
+                    request.result().completeExceptionally(e);
+                }
+            }
+            if (targets.isEmpty()) {
+                return;
+            }
+            batchNodes.record(targets.size());
+
+            DenseGraph graph = sampler.sample(targets, config.featureProperties(), config.nodeLabels(),
+                    config.relationshipTypes(), config.sampleSizes());
+            float[][] embeddings = lease.predictor().predict(new EmbeddingTranslator.Input(graph, targets.size()));
+            for (Request request : valid) {
+                float[][] result = new float[request.nodeIds().length][];
+                for (int i = 0; i < result.length; i++) {
+                    Integer row = rows.get(request.nodeIds()[i]);
+                    result[i] = row == null ? null : embeddings[row];
+                }
+                request.result().complete(result);
+            }
+        } catch (Exception e) {
+            batch.forEach(request -> request.result().completeExceptionally(e));
+        }
+    }
+
+    public String modelName() {
+        return modelName;
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    /** Distinct nodes per forward pass. */
+    public Histogram batchNodes() {
+        return batchNodes;
+    }
+
+    /** Time from queueing a request until its batch is dispatched. */
+    public Histogram queueWaitMicros() {
+        return queueWaitMicros;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pin.close();
+    }
+}
@@ -0,0 +1,212 @@
+package app.adada.neo4j.gnn.inference;
+
+import org.neo4j.graphdb.Transaction;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import app.adada.neo4j.algo.CompactGraph;
+import app.adada.neo4j.algo.NeighborSampler;
+import app.adada.neo4j.gnn.graphsage.GraphSageLayers;
+import app.adada.neo4j.gnn.graphsage.GraphSageModelConfig;
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.NativeMemoryTracker;
+import app.adada.neo4j.metrics.Stage;
+import app.adada.neo4j.util.MappedFloatMatrix;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * Exact full-graph inference, one GNN layer at a time.
+ *
+ * <p>
+ * Layer {@code l} is computed for all nodes in streaming chunks of target nodes
+ * from the full incoming neighborhood, reading layer {@code l - 1} from an
+ * off-heap {@code [N, dim]} matrix. Every node is computed exactly once per
+ * layer, so the cost is linear in the number of relationships instead of
+ * recomputing overlapping sampled neighborhoods per node.
+ */
+public class LayerwiseInference {
+
+    /** Upper bound of relationships gathered into one chunk. */
+    private static final int MAX_CHUNK_EDGES = 1 << 20;
+
+    private final Transaction tx;
+    private final GraphSageModelConfig config;
+    private final GraphSageLayers layers;
+    private final NDManager manager;
+    private final NativeMemoryTracker memory;
+    private final int batchSize;
+
+    /**
+     * @param manager the manager chunk arrays are created under
+     * @param memory  accounts the arrays under {@code manager} after every chunk
+     */
+    public LayerwiseInference(Transaction tx, GraphSageModelConfig config, GraphSageLayers layers,
+            NDManager manager, NativeMemoryTracker memory, int batchSize) {
+        this.tx = tx;
+        this.config = config;
+        this.layers = layers;
+        this.manager = manager;
+        this.memory = memory;
+        this.batchSize = batchSize;
+    }
+
+    public NodeEmbeddings run() {
+        long start = System.currentTimeMillis();
+        CompactGraph graph = CompactGraph.load(tx, config.nodeLabels(), config.relationshipTypes());
+        System.out.printf("Layer-wise inference: %d nodes, %d relationships loaded in %d ms%n",
+                graph.nodeCount(), graph.relationshipCount(), System.currentTimeMillis() - start);
+        return run(graph);
+    }
+
+    public NodeEmbeddings run(CompactGraph graph) {
+        MappedFloatMatrix h = readFeatures(graph);
+        try {
+            h = applyRowwise(h, layers::forwardPre);
+            for (int layer = 0; layer < layers.numLayers(); layer++) {
+                long start = System.currentTimeMillis();
+                h = applyLayer(graph, h, layer);
+                System.out.printf("Layer-wise inference: layer %d done in %d ms%n", layer,
+                        System.currentTimeMillis() - start);
+            }
+            h = applyRowwise(h, layers::forwardPost);
+            return new NodeEmbeddings(graph, h);
+        } catch (RuntimeException e) {
+            h.close();
+            throw e;
+        }
+    }
+
+    private MappedFloatMatrix readFeatures(CompactGraph graph) {
+        int dim = config.featureDimension().intValue();
+        MappedFloatMatrix x = MappedFloatMatrix.temporary(graph.nodeCount(), dim);
+        long start = System.nanoTime();
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            @SuppressWarnings("removal")
+            float[] features = NeighborSampler.concatFeatures(tx.getNodeById(graph.nodeId(i)),
+                    config.featureProperties());
+            if (features.length != dim) {
+                x.close();
+                throw new IllegalStateException("Node " + graph.nodeId(i) + " has " + features.length
+                        + " features, expected " + dim);
+            }
+            x.setRow(i, features, 0);
+        }
+        MetricsRegistry.record(Stage.FEATURE_GATHER, start, graph.nodeCount());
+        return x;
+    }
+
+    /**
+     * Applies a per-row function (pre/post linears) in chunks; {@code in} is
+     * released once the output is written.
+     */
+    private MappedFloatMatrix applyRowwise(MappedFloatMatrix in, UnaryOperator<NDArray> fn) {
+        int n = Math.toIntExact(in.rows());
+        MappedFloatMatrix out = null;
+        int[] rows = new int[batchSize];
+        try {
+            for (int start = 0; start < n; start += batchSize) {
+                int count = Math.min(batchSize, n - start);
+                for (int i = 0; i < count; i++) {
+                    rows[i] = start + i;
+                }
+                int[] chunk = count == rows.length ? rows : Arrays.copyOf(rows, count);
+                try (NDManager chunkManager = manager.newSubManager()) {
+                    NDArray x = chunkManager.create(in.gather(chunk), new Shape(count, in.dim()));
+                    NDArray y = fn.apply(x);
+                    memory.checkpoint("row-wise chunk at " + start);
+                    if (y == x) {
+                        return in; // identity, e.g. no pre/post linears
+                    }
+                    if (out == null) {
+                        out = MappedFloatMatrix.temporary(n, (int) y.getShape().get(1));
+                    }
+                    out.scatter(chunk, count, y.toFloatArray());
+                }
+            }
+        } catch (RuntimeException e) {
+            if (out != null) {
+                out.close();
+            }
+            throw e;
+        }
+        in.close();
+        return out == null ? in : out;
+    }
+
+    private MappedFloatMatrix applyLayer(CompactGraph graph, MappedFloatMatrix in, int layer) {
+        int n = graph.nodeCount();
+        int[] neighbors = graph.neighbors();
+        int[] local = new int[n];
+        Arrays.fill(local, -1);
+        MappedFloatMatrix out = null;
+        try {
+            int start = 0;
+            while (start < n) {
+                // Target nodes [start, end) come first in the local index
+                int end = start;
+                long edges = 0;
+                while (end < n && end - start < batchSize
+                        && (end == start || edges + graph.degree(end) <= MAX_CHUNK_EDGES)) {
+                    edges += graph.degree(end);
+                    local[end] = end - start;
+                    end++;
+                }
+                int targets = end - start;
+                int[] rows = new int[targets + (int) Math.min(edges, Integer.MAX_VALUE - targets)];
+                for (int i = 0; i < targets; i++) {
+                    rows[i] = start + i;
+                }
+                int numRows = targets;
+                long[] src = new long[(int) edges];
+                long[] dst = new long[(int) edges];
+                int e = 0;
+                for (int t = start; t < end; t++) {
+                    for (int k = graph.offset(t); k < graph.offset(t + 1); k++) {
+                        int neighbor = neighbors[k];
+                        if (local[neighbor] < 0) {
+                            local[neighbor] = numRows;
+                            rows[numRows++] = neighbor;
+                        }
+                        src[e] = local[neighbor];
+                        dst[e] = local[t];
+                        e++;
+                    }
+                }
+                int[] gathered = Arrays.copyOf(rows, numRows);
+                try (NDManager chunkManager = manager.newSubManager()) {
+                    long time = System.nanoTime();
+                    NDArray x = chunkManager.create(in.gather(gathered), new Shape(numRows, in.dim()));
+                    NDArray edgeIndex = chunkManager.create(new long[][] { src, dst });
+                    MetricsRegistry.record(Stage.NDARRAY_CREATION, time,
+                            (long) numRows * in.dim() * Float.BYTES + 2L * edges * Long.BYTES);
+                    time = System.nanoTime();
+                    NDArray y = layers.forwardLayer(layer, x, edgeIndex).get("0:" + targets);
+                    float[] rowsOut = y.toFloatArray();
+                    memory.checkpoint("layer " + layer + " chunk at " + start);
+                    MetricsRegistry.record(Stage.FORWARD, time, numRows);
+                    if (out == null) {
+                        out = MappedFloatMatrix.temporary(n, (int) y.getShape().get(1));
+                    }
+                    out.scatter(gathered, targets, rowsOut);
+                }
+                for (int row : gathered) {
+                    local[row] = -1;
+                }
+                start = end;
+            }
+        } catch (RuntimeException e) {
+            if (out != null) {
+                out.close();
+            }
+            throw e;
+        }
+        if (out == null) {
+            return in; // empty graph
+        }
+        in.close();
+        return out;
+    }
+}
@@ -0,0 +1,39 @@
+package app.adada.neo4j.gnn.inference;
+
+import app.adada.neo4j.algo.CompactGraph;
+import app.adada.neo4j.util.MappedFloatMatrix;
+
+/**
+ * Output of layer-wise inference: one off-heap row per node of the graph.
+ */
+public class NodeEmbeddings implements AutoCloseable {
+    private final CompactGraph graph;
+    private final MappedFloatMatrix matrix;
+
+    public NodeEmbeddings(CompactGraph graph, MappedFloatMatrix matrix) {
+        this.graph = graph;
+        this.matrix = matrix;
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public int dim() {
+        return matrix.dim();
+    }
+
+    /**
+     * Returns the embedding of the node with the given internal id, or
+     * {@code null} if the node is not part of the model graph.
+     */
+    public float[] get(long nodeId) {
+        int index = graph.indexOf(nodeId);
+        return index < 0 ? null : matrix.getRow(index);
+    }
+
+    @Override
+    public void close() {
+        matrix.close();
+    }
+}
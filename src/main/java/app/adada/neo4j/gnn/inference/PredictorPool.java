@@ -0,0 +1,318 @@
+package app.adada.neo4j.gnn.inference;
+
+import ai.djl.Device;
+import ai.djl.Model;
+import ai.djl.inference.Predictor;
+import ai.djl.translate.NoBatchifyTranslator;
+import ai.djl.translate.TranslateException;
+import app.adada.neo4j.algo.DenseGraph;
+import app.adada.neo4j.config.PluginSettings;
+import app.adada.neo4j.gnn.graphsage.GraphSageInferConfig;
+import app.adada.neo4j.gnn.graphsage.GraphSageModel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of predictors over one loaded model.
+ *
+ * <p>
+ * DJL predictors are not thread-safe, but predictors of the same model share
+ * its parameters. A pool lends each caller its own predictor, creating and
+ * warming up new ones up to {@code NEOTORCH_PREDICTOR_POOL_SIZE} and blocking
+ * beyond that. Idle predictors are kept per translator type. Predictors idle
+ * for {@code NEOTORCH_PREDICTOR_IDLE_SECONDS} are closed, and so is the model
+ * once its pool is empty. Each version and precision of a model has its own
+ * pool, so a call gets predictors of the version it pinned. A pool is retired
+ * when a pool of a newer version is created or the model is dropped, and
+ * closes its model when the last lease is returned.
+ */
+public class PredictorPool {
+
+    private static final Map<String, PredictorPool> POOLS = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "neotorch-predictor-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        long period = Math.max(1, PluginSettings.getInstance().predictorIdleSeconds / 4);
+        EVICTOR.scheduleWithFixedDelay(PredictorPool::evictIdle, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * A translator that can be pooled: stateless, and able to warm up a new
+     * predictor.
+     */
+    public interface PooledTranslator<I, O> extends NoBatchifyTranslator<I, O> {
+        /**
+         * @param graph one node with a self-loop
+         * @return an input over {@code graph}, run once on every new predictor
+         */
+        I warmUpInput(DenseGraph graph);
+    }
+
+    private record Idle(Predictor<?, ?> predictor, long returnedNanos) {
+    }
+
+    /**
+     * A borrowed predictor, returned to its pool on close.
+     */
+    public static class Lease<I, O> implements AutoCloseable {
+        private final PredictorPool pool;
+        private final Class<?> type;
+        private Predictor<I, O> predictor;
+
+        private Lease(PredictorPool pool, Class<?> type, Predictor<I, O> predictor) {
+            this.pool = pool;
+            this.type = type;
+            this.predictor = predictor;
+        }
+
+        public Predictor<I, O> predictor() {
+            if (predictor == null) {
+                throw new IllegalStateException("Predictor lease has been returned");
+            }
+            return predictor;
+        }
+
+        @Override
+        public void close() {
+            if (predictor != null) {
+                pool.giveBack(type, predictor);
+                predictor = null;
+            }
+        }
+    }
+
+    private final String key;
+    private final String modelName;
+    private final int version;
+    private final String precision;
+    private final Model model;
+    private final long featureDimension;
+    private final Semaphore permits;
+    private final Map<Class<?>, Deque<Idle>> idle = new HashMap<>();
+    private int leased;
+    private boolean retired;
+    private boolean closed;
+    private long lastUsedNanos = System.nanoTime();
+
+    private PredictorPool(String key, GraphSageModel sageModel, Device device, String precision) {
+        this.key = key;
+        this.modelName = sageModel.getModelName();
+        this.version = sageModel.version();
+        this.precision = precision;
+        this.model = sageModel.loadInferenceModel(device, precision);
+        this.featureDimension = sageModel.config().featureDimension();
+        this.permits = new Semaphore(Math.max(1, PluginSettings.getInstance().predictorPoolSize));
+    }
+
+    /**
+     * Borrows an embedding predictor of the current parameters of
+     * {@code sageModel}.
+     *
+     * @see #borrow(GraphSageModel, Device, String, PooledTranslator)
+     */
+    public static Lease<EmbeddingTranslator.Input, float[][]> borrow(GraphSageModel sageModel, Device device,
+            String precision) {
+        return borrow(sageModel, device, precision, new EmbeddingTranslator());
+    }
+
+    /**
+     * Borrows a predictor of the pinned version of {@code sageModel}, loading
+     * the model on first use of that version.
+     *
+     * @param sageModel  the loaded model
+     * @param device     the device to load the model on; an existing pool keeps
+     *                   its device
+     * @param precision  {@link GraphSageInferConfig#FLOAT32} or
+     *                   {@link GraphSageInferConfig#INT8}
+     * @param translator the translator of a new predictor; predictors are reused
+     *                   by translator class
+     */
+    public static <I, O> Lease<I, O> borrow(GraphSageModel sageModel, Device device, String precision,
+            PooledTranslator<I, O> translator) {
+        String modelName = sageModel.getModelName();
+        int version = sageModel.version();
+        String key = modelName + "/v" + version + "@" + precision;
+        while (true) {
+            PredictorPool pool = POOLS.get(key);
+            if (pool == null || pool.isClosed()) {
+                // Loaded outside the map, so a slow load does not block other models' lookups
+                PredictorPool loaded = new PredictorPool(key, sageModel, device, precision);
+                boolean installed = pool == null ? POOLS.putIfAbsent(key, loaded) == null
+                        : POOLS.replace(key, pool, loaded);
+                if (!installed) {
+                    // Another call installed a pool first
+                    loaded.retire();
+                    continue;
+                }
+                pool = loaded;
+                // Pools of older versions only serve their remaining leases
+                POOLS.values().removeIf(old -> {
+                    if (old.modelName.equals(modelName) && old.precision.equals(precision) && old.version < version) {
+                        old.retire();
+                        return true;
+                    }
+                    return false;
+                });
+            }
+            Lease<I, O> lease = pool.tryBorrow(translator);
+            if (lease != null) {
+                return lease;
+            }
+            // Evicted or retired between lookup and borrow
+        }
+    }
+
+    /**
+     * Retires the pools of a model, e.g. when it is dropped.
+     */
+    public static void retire(String modelName) {
+        POOLS.values().removeIf(pool -> {
+            if (pool.modelName.equals(modelName)) {
+                pool.retire();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Retires the pool of one version and precision of a model, e.g. when its
+     * artifact is rewritten.
+     */
+    public static void retire(String modelName, int version, String precision) {
+        PredictorPool pool = POOLS.remove(modelName + "/v" + version + "@" + precision);
+        if (pool != null) {
+            pool.retire();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <I, O> Lease<I, O> tryBorrow(PooledTranslator<I, O> translator) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a predictor of " + modelName, e);
+        }
+        Class<?> type = translator.getClass();
+        Idle reused;
+        synchronized (this) {
+            if (closed || retired) {
+                permits.release();
+                return null;
+            }
+            leased++;
+            lastUsedNanos = System.nanoTime();
+            Deque<Idle> entries = idle.get(type);
+            reused = entries == null ? null : entries.pollFirst();
+        }
+        if (reused != null) {
+            return new Lease<>(this, type, (Predictor<I, O>) reused.predictor());
+        }
+        try {
+            return new Lease<>(this, type, newPredictor(translator));
+        } catch (RuntimeException e) {
+            giveBack(type, null);
+            throw e;
+        }
+    }
+
+    private <I, O> Predictor<I, O> newPredictor(PooledTranslator<I, O> translator) {
+        Predictor<I, O> predictor = model.newPredictor(translator);
+        // One node with a self-loop, so the first real call skips lazy engine setup
+        DenseGraph graph = new DenseGraph(new float[1][(int) featureDimension], new long[][] { { 0 }, { 0 } });
+        try {
+            predictor.predict(translator.warmUpInput(graph));
+        } catch (TranslateException e) {
+            predictor.close();
+            throw new RuntimeException("Failed to warm up predictor of " + modelName, e);
+        }
+        return predictor;
+    }
+
+    private void giveBack(Class<?> type, Predictor<?, ?> predictor) {
+        boolean closeModel = false;
+        synchronized (this) {
+            leased--;
+            lastUsedNanos = System.nanoTime();
+            if (retired) {
+                if (predictor != null) {
+                    predictor.close();
+                }
+                closeModel = leased == 0 && !closed;
+                closed |= closeModel;
+            } else if (predictor != null) {
+                idle.computeIfAbsent(type, key -> new ArrayDeque<>()).addFirst(new Idle(predictor, lastUsedNanos));
+            }
+        }
+        permits.release();
+        if (closeModel) {
+            model.close();
+        }
+    }
+
+    private void retire() {
+        List<Idle> evicted = new ArrayList<>();
+        boolean closeModel;
+        synchronized (this) {
+            retired = true;
+            idle.values().forEach(evicted::addAll);
+            idle.clear();
+            closeModel = leased == 0 && !closed;
+            closed |= closeModel;
+        }
+        evicted.forEach(entry -> entry.predictor().close());
+        if (closeModel) {
+            model.close();
+        }
+    }
+
+    private synchronized boolean isClosed() {
+        return closed || retired;
+    }
+
+    private static void evictIdle() {
+        long timeout = TimeUnit.SECONDS.toNanos(PluginSettings.getInstance().predictorIdleSeconds);
+        long now = System.nanoTime();
+        for (PredictorPool pool : POOLS.values()) {
+            List<Idle> evicted = new ArrayList<>();
+            boolean unused;
+            synchronized (pool) {
+                for (Deque<Idle> entries : pool.idle.values()) {
+                    // Most recently returned predictors are at the head
+                    Iterator<Idle> oldest = entries.descendingIterator();
+                    while (oldest.hasNext()) {
+                        Idle entry = oldest.next();
+                        if (now - entry.returnedNanos() < timeout) {
+                            break;
+                        }
+                        evicted.add(entry);
+                        oldest.remove();
+                    }
+                }
+                pool.idle.values().removeIf(Deque::isEmpty);
+                unused = pool.leased == 0 && pool.idle.isEmpty() && now - pool.lastUsedNanos >= timeout;
+            }
+            evicted.forEach(entry -> entry.predictor().close());
+            if (unused && POOLS.remove(pool.key, pool)) {
+                pool.retire();
+                System.out.printf("Unloaded idle model %s%n", pool.key);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package app.adada.neo4j.gnn.inference;
+
+import org.neo4j.graphdb.Node;
+
+import ai.djl.inference.Predictor;
+import ai.djl.translate.TranslateException;
+import app.adada.neo4j.algo.DenseGraph;
+import app.adada.neo4j.algo.NeighborSampler;
+import app.adada.neo4j.gnn.graphsage.GraphSageModelConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy mini-batch classification over sampled neighborhoods, the
+ * classification counterpart of {@link SampledInference}.
+ */
+public class SampledClassification implements Iterator<SampledClassification.NodeClasses> {
+
+    /**
+     * The top classes of one node, most probable first.
+     */
+    public record NodeClasses(long nodeId, long[] classes, float[] probabilities) {
+    }
+
+    private final Predictor<ClassTranslator.Input, ClassTranslator.TopClasses> predictor;
+    private final GraphSageModelConfig config;
+    private final NeighborSampler sampler;
+    private final List<Node> nodes;
+    private final int batchSize;
+    private final int k;
+
+    private int batchStart;
+    private int batchLength;
+    private ClassTranslator.TopClasses batch;
+    private int[] rowOf;
+    private int cursor;
+
+    public SampledClassification(Predictor<ClassTranslator.Input, ClassTranslator.TopClasses> predictor,
+            GraphSageModelConfig config, NeighborSampler sampler, List<Node> nodes, int batchSize, int k) {
+        this.predictor = predictor;
+        this.config = config;
+        this.sampler = sampler;
+        this.nodes = nodes;
+        this.batchSize = batchSize;
+        this.k = k;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor < batchLength || batchStart < nodes.size();
+    }
+
+    @Override
+    @SuppressWarnings("removal")
+    public NodeClasses next() {
+        if (cursor == batchLength) {
+            if (batchStart >= nodes.size()) {
+                throw new NoSuchElementException();
+            }
+            nextBatch();
+        }
+        Node node = nodes.get(batchStart - batchLength + cursor);
+        int from = rowOf[cursor++] * batch.k();
+        return new NodeClasses(node.getId(), Arrays.copyOfRange(batch.classes(), from, from + batch.k()),
+                Arrays.copyOfRange(batch.probabilities(), from, from + batch.k()));
+    }
+
+    private void nextBatch() {
+        List<Node> batchNodes = nodes.subList(batchStart, Math.min(batchStart + batchSize, nodes.size()));
+        // The sampler needs distinct seeds; repeated nodes share one row
+        Map<String, Integer> rows = new HashMap<>();
+        List<Node> seeds = new ArrayList<>(batchNodes.size());
+        rowOf = new int[batchNodes.size()];
+        for (int i = 0; i < rowOf.length; i++) {
+            Node node = batchNodes.get(i);
+            rowOf[i] = rows.computeIfAbsent(node.getElementId(), id -> {
+                seeds.add(node);
+                return seeds.size() - 1;
+            });
+        }
+        DenseGraph graph = sampler.sample(seeds, config.featureProperties(), config.nodeLabels(),
+                config.relationshipTypes(), config.sampleSizes());
+        try {
+            batch = predictor.predict(new ClassTranslator.Input(graph, seeds.size(), k));
+        } catch (TranslateException e) {
+            throw new RuntimeException("Classification failed for batch starting at " + batchStart, e);
+        }
+        batchStart += batchNodes.size();
+        batchLength = batchNodes.size();
+        cursor = 0;
+    }
+}
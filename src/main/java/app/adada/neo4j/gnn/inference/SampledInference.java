@@ -0,0 +1,94 @@
+package app.adada.neo4j.gnn.inference;
+
+import org.neo4j.graphdb.Node;
+
+import ai.djl.inference.Predictor;
+import ai.djl.translate.TranslateException;
+import app.adada.neo4j.algo.DenseGraph;
+import app.adada.neo4j.algo.NeighborSampler;
+import app.adada.neo4j.gnn.GnnModel.Prediction;
+import app.adada.neo4j.gnn.graphsage.GraphSageModelConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy mini-batch inference over sampled neighborhoods.
+ *
+ * <p>
+ * The next batch is sampled and run through the model only when the rows of
+ * the previous one have been consumed, so memory is bounded by the batch size
+ * instead of the number of input nodes.
+ */
+public class SampledInference implements Iterator<Prediction> {
+
+    private final Predictor<EmbeddingTranslator.Input, float[][]> predictor;
+    private final GraphSageModelConfig config;
+    private final NeighborSampler sampler;
+    private final List<Node> nodes;
+    private final int batchSize;
+
+    private int batchStart;
+    private float[][] batch = new float[0][];
+    private int cursor;
+
+    public SampledInference(Predictor<EmbeddingTranslator.Input, float[][]> predictor,
+            GraphSageModelConfig config, NeighborSampler sampler, List<Node> nodes, int batchSize) {
+        this.predictor = predictor;
+        this.config = config;
+        this.sampler = sampler;
+        this.nodes = nodes;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor < batch.length || batchStart < nodes.size();
+    }
+
+    @Override
+    @SuppressWarnings("removal")
+    public Prediction next() {
+        if (cursor == batch.length) {
+            if (batchStart >= nodes.size()) {
+                throw new NoSuchElementException();
+            }
+            nextBatch();
+        }
+        Node node = nodes.get(batchStart - batch.length + cursor);
+        return new Prediction(node.getId(), batch[cursor++]);
+    }
+
+    private void nextBatch() {
+        List<Node> batchNodes = nodes.subList(batchStart, Math.min(batchStart + batchSize, nodes.size()));
+        // The sampler needs distinct seeds; repeated nodes share one row
+        Map<String, Integer> rows = new HashMap<>();
+        List<Node> seeds = new ArrayList<>(batchNodes.size());
+        int[] rowOf = new int[batchNodes.size()];
+        for (int i = 0; i < rowOf.length; i++) {
+            Node node = batchNodes.get(i);
+            rowOf[i] = rows.computeIfAbsent(node.getElementId(), id -> {
+                seeds.add(node);
+                return seeds.size() - 1;
+            });
+        }
+        DenseGraph graph = sampler.sample(seeds, config.featureProperties(), config.nodeLabels(),
+                config.relationshipTypes(), config.sampleSizes());
+        float[][] out;
+        try {
+            out = predictor.predict(new EmbeddingTranslator.Input(graph, seeds.size()));
+        } catch (TranslateException e) {
+            throw new RuntimeException("Inference failed for batch starting at " + batchStart, e);
+        }
+        batch = new float[rowOf.length][];
+        for (int i = 0; i < rowOf.length; i++) {
+            batch[i] = out[rowOf[i]];
+        }
+        batchStart += batchNodes.size();
+        cursor = 0;
+    }
+}
@@ -32,21 +32,28 @@ public class GraphSageUnsupervisedLoss extends Loss {
         NDArray posEdgeIndex = prediction.get(1); // shape [2, B]
         NDArray negEdgeIndex = prediction.get(2); // shape [2, B]
 
-        // 2. node embeddings: [B, d]
-        NDArray posU = embeddings.get(posEdgeIndex.get(0));
-        NDArray posV = embeddings.get(posEdgeIndex.get(1));
-        NDArray negU = embeddings.get(negEdgeIndex.get(0));
-        NDArray negV = embeddings.get(negEdgeIndex.get(1));
+        // 2. inner product of the edge endpoints: [B]
+        NDArray posScore = linkLogits(embeddings, posEdgeIndex.get(0), posEdgeIndex.get(1));
+        NDArray negScore = linkLogits(embeddings, negEdgeIndex.get(0), negEdgeIndex.get(1));
 
-        // 3. inner product: [B]
-        NDArray posScore = posU.mul(posV).sum(new int[] { 1 });
-        NDArray negScore = negU.mul(negV).sum(new int[] { 1 });
-
-        // 4. logistic loss
+        // 3. logistic loss
         NDArray posLoss = Activation.sigmoid(posScore).log().neg(); // [B]
         NDArray negLoss = Activation.sigmoid(negScore.neg()).log().neg().mul(negativeSampleWeight); // [B]
 
-        // 5. combine losses
+        // 4. combine losses
         return posLoss.add(negLoss).mean();
     }
+
+    /**
+     * Link logits the loss is trained on; {@code sigmoid} of them is the
+     * predicted edge probability.
+     *
+     * @param embeddings node embeddings [N, d]
+     * @param sources    source rows [B]
+     * @param targets    target rows [B]
+     * @return the inner products [B]
+     */
+    public static NDArray linkLogits(NDArray embeddings, NDArray sources, NDArray targets) {
+        return embeddings.get(sources).mul(embeddings.get(targets)).sum(new int[] { 1 });
+    }
 }
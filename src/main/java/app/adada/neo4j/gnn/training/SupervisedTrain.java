@@ -2,13 +2,17 @@ package app.adada.neo4j.gnn.training;
 
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.index.NDIndex;
 import ai.djl.training.GradientCollector;
 import ai.djl.training.Trainer;
 import ai.djl.training.dataset.Batch;
 import ai.djl.training.dataset.Dataset;
+import ai.djl.training.listener.EvaluatorTrainingListener;
 import ai.djl.training.listener.TrainingListener.BatchData;
 import ai.djl.translate.TranslateException;
 import ai.djl.util.Preconditions;
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.Stage;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -34,11 +38,15 @@ public final class SupervisedTrain {
      * @param trainingDataset the dataset to train on
      * @param validateDataset the dataset to validate against. Can be null for no
      *                        validation
+     * @param maxIterations   the maximum number of batches per epoch, or 0 for all
+     * @param epochLosses     receives the training loss of every epoch
+     * @param profile         receives the timing of every batch and epoch
      * @throws IOException        for various exceptions depending on the dataset
      * @throws TranslateException if there is an error while processing input
      */
     public static void fit(
-            Trainer trainer, int numEpoch, Dataset trainingDataset, Dataset validateDataset)
+            Trainer trainer, int numEpoch, Dataset trainingDataset, Dataset validateDataset, int maxIterations,
+            List<Float> epochLosses, TrainingProfile profile)
             throws IOException, TranslateException {
 
         // Deep learning is typically trained in epochs where each epoch trains the
@@ -52,7 +60,17 @@ public final class SupervisedTrain {
             long epochStart = System.nanoTime();
 
             // We iterate through the dataset once during each epoch
+            int count = 0;
+            long fetchStart = System.nanoTime();
             for (Batch batch : trainer.iterateDataset(trainingDataset)) {
+                if (maxIterations > 0 && count++ >= maxIterations) {
+                    batch.close();
+                    break; // Stop after maxIterations
+                }
+                NDList data = batch.getData(); // features [N, D], edge index [2, E], ...
+                profile.batchFetched(System.nanoTime() - fetchStart, batch.getSize(),
+                        data.get(0).getShape().get(0), data.get(1).getShape().get(1));
+                long computeStart = System.nanoTime();
 
                 // During trainBatch, we update the loss and evaluators with the results for the
                 // training batch
@@ -60,7 +78,10 @@ public final class SupervisedTrain {
 
                 // Now, we update the model parameters based on the results of the latest
                 // trainBatch
+                long stepStart = System.nanoTime();
                 trainer.step();
+                MetricsRegistry.record(Stage.STEP, stepStart, 1);
+                profile.batchComputed(System.nanoTime() - computeStart);
 
                 long epochEnd = System.nanoTime();
                 epochTimes[epoch] = epochEnd - epochStart;
@@ -70,13 +91,17 @@ public final class SupervisedTrain {
                 // If the memory isn't closed after each batch, you will very quickly run out of
                 // memory on your GPU
                 batch.close();
+                fetchStart = System.nanoTime();
             }
 
+            epochLosses.add(trainer.getLoss().getAccumulator(EvaluatorTrainingListener.TRAIN_EPOCH));
+
             // After each epoch, test against the validation dataset if we have one
             evaluateDataset(trainer, validateDataset);
 
             // reset training and validation evaluators at end of epoch
             trainer.notifyListeners(listener -> listener.onEpoch(trainer));
+            profile.epochFinished(System.nanoTime() - epochStart);
         }
         // Calculate the average epoch time
         double avgEpochTimeMs = 0.0;
@@ -131,11 +156,14 @@ public final class SupervisedTrain {
             Trainer trainer, GradientCollector collector, BatchData batchData, Batch split) {
         NDList data = split.getData();
         NDList labels = split.getLabels();
-        NDList preds = trainer.forward(data, labels);
         long time = System.nanoTime();
+        NDList preds = seedRows(trainer.forward(data, labels), labels);
+        MetricsRegistry.record(Stage.FORWARD, time, data.get(0).getShape().get(0));
+        time = System.nanoTime();
         NDArray lossValue = trainer.getLoss().evaluate(labels, preds);
         collector.backward(lossValue);
         trainer.addMetric("backward", time);
+        MetricsRegistry.record(Stage.BACKWARD, time, 1);
         time = System.nanoTime();
         batchData.getLabels().put(labels.get(0).getDevice(), labels);
         batchData.getPredictions().put(preds.get(0).getDevice(), preds);
@@ -228,12 +256,21 @@ public final class SupervisedTrain {
             Batch split) {
         NDList data = split.getData();
         NDList labels = split.getLabels();
-        NDList preds = trainer.evaluate(data);
+        NDList preds = seedRows(trainer.evaluate(data), labels);
         batchData.getLabels().put(labels.get(0).getDevice(), labels);
         batchData.getPredictions().put(preds.get(0).getDevice(), preds);
         return true;
     }
 
+    /**
+     * Keeps the predictions of the batch nodes, which are the first rows of the
+     * sampled subgraph; their sampled neighbors are unlabeled.
+     */
+    private static NDList seedRows(NDList preds, NDList labels) {
+        long seeds = labels.get(0).getShape().get(0);
+        return new NDList(preds.get(0).get(new NDIndex("0:{}", seeds)));
+    }
+
     /**
      * Evaluates the test dataset.
      *
@@ -0,0 +1,135 @@
+package app.adada.neo4j.gnn.training;
+
+import app.adada.neo4j.metrics.NativeMemoryTracker;
+import app.adada.neo4j.util.Histogram;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where the time of a training run goes: per-epoch wall time, time waiting for
+ * sampled batches versus time in forward, backward and optimizer steps, and
+ * peak memory sampled after every batch. The native arrays of the job are
+ * checked against its budget after every fetch and compute.
+ */
+public class TrainingProfile {
+
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final NativeMemoryTracker memory;
+    private final List<Double> epochSeconds = new ArrayList<>();
+    private final Histogram subgraphNodes = new Histogram();
+    private final Histogram subgraphEdges = new Histogram();
+    private long samplingNanos;
+    private long computeNanos;
+    private long batches;
+    private long fetchNanos;
+    private double batchSecondsSum;
+    private double batchSecondsSquares;
+    private double batchSecondsMax;
+    private long seedNodes;
+    private long peakHeapBytes;
+    private long peakRssBytes = -1;
+
+    public TrainingProfile(NativeMemoryTracker memory) {
+        this.memory = memory;
+    }
+
+    /**
+     * @param nanos time spent fetching the batch, i.e. sampling it and
+     *              creating its arrays
+     * @param seeds the number of seed nodes in the batch
+     * @param nodes the number of nodes of its sampled subgraph
+     * @param edges the number of edges of its sampled subgraph
+     */
+    public void batchFetched(long nanos, long seeds, long nodes, long edges) {
+        samplingNanos += nanos;
+        fetchNanos = nanos;
+        seedNodes += seeds;
+        subgraphNodes.record(nodes);
+        subgraphEdges.record(edges);
+        batches++;
+        memory.checkpoint("fetch of batch " + batches);
+    }
+
+    /**
+     * @param nanos time spent in forward, backward and step of the batch
+     */
+    public void batchComputed(long nanos) {
+        computeNanos += nanos;
+        double batchSeconds = (fetchNanos + nanos) / 1e9;
+        batchSecondsSum += batchSeconds;
+        batchSecondsSquares += batchSeconds * batchSeconds;
+        batchSecondsMax = Math.max(batchSecondsMax, batchSeconds);
+        memory.checkpoint("compute of batch " + batches);
+        peakHeapBytes = Math.max(peakHeapBytes, MEMORY.getHeapMemoryUsage().getUsed());
+        peakRssBytes = Math.max(peakRssBytes, residentBytes());
+    }
+
+    public void epochFinished(long nanos) {
+        epochSeconds.add(nanos / 1e9);
+    }
+
+    /**
+     * Resident set size of the process, which holds the native tensors of CPU
+     * training, or -1 where {@code /proc} is not available.
+     */
+    private static long residentBytes() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux
+        }
+        return -1;
+    }
+
+    /**
+     * Spread of the fetch plus compute time of the batches; a high coefficient
+     * of variation means straggler batches.
+     */
+    private Map<String, Object> batchSeconds() {
+        double mean = batches == 0 ? 0 : batchSecondsSum / batches;
+        double variance = batches == 0 ? 0 : Math.max(0, batchSecondsSquares / batches - mean * mean);
+        Map<String, Object> map = new HashMap<>();
+        map.put("mean", mean);
+        map.put("variance", variance);
+        map.put("cv", mean == 0 ? 0.0 : Math.sqrt(variance) / mean);
+        map.put("max", batchSecondsMax);
+        return map;
+    }
+
+    /**
+     * @return the profile for {@code modelInfo.metrics}
+     */
+    public Map<String, Object> toMap() {
+        double totalSeconds = (samplingNanos + computeNanos) / 1e9;
+        Map<String, Object> map = new HashMap<>();
+        map.put("epochSeconds", epochSeconds);
+        map.put("samplingSeconds", samplingNanos / 1e9);
+        map.put("computeSeconds", computeNanos / 1e9);
+        map.put("batches", batches);
+        map.put("batchesPerSecond", totalSeconds == 0 ? 0.0 : batches / totalSeconds);
+        map.put("seedNodesPerSecond", totalSeconds == 0 ? 0.0 : seedNodes / totalSeconds);
+        map.put("meanSubgraphNodes", subgraphNodes.mean());
+        map.put("meanSubgraphEdges", subgraphEdges.mean());
+        map.put("subgraphNodes", subgraphNodes.toMap());
+        map.put("subgraphEdges", subgraphEdges.toMap());
+        map.put("batchSeconds", batchSeconds());
+        map.put("peakNativeBytes", memory.peakBytes());
+        map.put("peakHeapBytes", peakHeapBytes);
+        map.put("peakRssBytes", peakRssBytes < 0 ? null : peakRssBytes);
+        return map;
+    }
+}
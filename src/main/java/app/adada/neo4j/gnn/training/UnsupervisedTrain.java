@@ -10,6 +10,8 @@ import ai.djl.training.listener.EvaluatorTrainingListener;
 import ai.djl.training.listener.TrainingListener.BatchData;
 import ai.djl.translate.TranslateException;
 import ai.djl.util.Preconditions;
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.Stage;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -35,12 +37,15 @@ public final class UnsupervisedTrain {
      * @param trainingDataset the dataset to train on
      * @param validateDataset the dataset to validate against. Can be null for no
      *                        validation
+     * @param maxIterations   the maximum number of batches per epoch, or 0 for all
+     * @param epochLosses     receives the training loss of every epoch
+     * @param profile         receives the timing of every batch and epoch
      * @throws IOException        for various exceptions depending on the dataset
      * @throws TranslateException if there is an error while processing input
      */
     public static void fit(
             Trainer trainer, int numEpoch, Dataset trainingDataset, Dataset validateDataset, int maxIterations,
-            List<Float> epochLosses)
+            List<Float> epochLosses, TrainingProfile profile)
             throws IOException, TranslateException {
 
         // Deep learning is typically trained in epochs where each epoch trains the
@@ -55,10 +60,16 @@ public final class UnsupervisedTrain {
 
             // We iterate through the dataset once during each epoch
             int count = 0;
+            long fetchStart = System.nanoTime();
             for (Batch batch : trainer.iterateDataset(trainingDataset)) {
                 if (maxIterations > 0 && count++ >= maxIterations) {
+                    batch.close();
                     break; // Stop after maxIterations
                 }
+                NDList data = batch.getData(); // features [N, D], edge index [2, E], ...
+                profile.batchFetched(System.nanoTime() - fetchStart, batch.getSize(),
+                        data.get(0).getShape().get(0), data.get(1).getShape().get(1));
+                long computeStart = System.nanoTime();
 
                 // During trainBatch, we update the loss and evaluators with the results for the
                 // training batch
@@ -67,8 +78,11 @@ public final class UnsupervisedTrain {
                 // Now, we update the model parameters based on the results of the latest
                 // trainBatch
                 if (canStep) {
+                    long stepStart = System.nanoTime();
                     trainer.step();
+                    MetricsRegistry.record(Stage.STEP, stepStart, 1);
                 }
+                profile.batchComputed(System.nanoTime() - computeStart);
 
                 long epochEnd = System.nanoTime();
                 epochTimes[epoch] = epochEnd - epochStart;
@@ -78,6 +92,7 @@ public final class UnsupervisedTrain {
                 // If the memory isn't closed after each batch, you will very quickly run out of
                 // memory on your GPU
                 batch.close();
+                fetchStart = System.nanoTime();
             }
 
             float trainLoss = trainer.getLoss().getAccumulator(EvaluatorTrainingListener.TRAIN_EPOCH);
@@ -87,6 +102,7 @@ public final class UnsupervisedTrain {
             evaluateDataset(trainer, validateDataset);
             // reset training and validation evaluators at end of epoch
             trainer.notifyListeners(listener -> listener.onEpoch(trainer));
+            profile.epochFinished(System.nanoTime() - epochStart);
 
             float epochTime = trainer.getMetrics().latestMetric("epoch").getValue().longValue() / 1_000_000_000f;
             System.out.printf("Train :: Epoch %d, %.2f sec :: Loss=%.4f%n", epoch, epochTime, trainLoss);
@@ -147,12 +163,15 @@ public final class UnsupervisedTrain {
             Trainer trainer, GradientCollector collector, BatchData batchData, Batch split) {
         NDList data = split.getData();
         NDList labels = split.getLabels();
-        NDList preds = trainer.forward(data.subNDList(0, 2), labels);
         long time = System.nanoTime();
+        NDList preds = trainer.forward(data.subNDList(0, 2), labels);
+        MetricsRegistry.record(Stage.FORWARD, time, data.get(0).getShape().get(0));
+        time = System.nanoTime();
         NDArray lossValue = trainer.getLoss().evaluate(labels, preds.addAll(
                 data.subNDList(2, 4)));
         collector.backward(lossValue);
         trainer.addMetric("backward", time);
+        MetricsRegistry.record(Stage.BACKWARD, time, 1);
         time = System.nanoTime();
         batchData.getLabels().put(labels.get(0).getDevice(), labels);
         batchData.getPredictions().put(preds.get(0).getDevice(), preds);
@@ -0,0 +1,141 @@
+package app.adada.neo4j.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide metrics of all models.
+ *
+ * <p>
+ * Instrumented code does not know which model it works for, so a caller binds
+ * a model to its thread with {@link #bind(String)} and everything recorded on
+ * that thread until the scope closes is attributed to it. Recordings on an
+ * unbound thread are dropped.
+ */
+public final class MetricsRegistry {
+
+    private static final Map<String, ModelMetrics> MODELS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<ModelMetrics> CURRENT = new ThreadLocal<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Restores the previously bound model on close.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final ModelMetrics previous;
+
+        private Scope(ModelMetrics previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static Scope bind(String modelName) {
+        ModelMetrics previous = CURRENT.get();
+        CURRENT.set(forModel(modelName));
+        return new Scope(previous);
+    }
+
+    /**
+     * Binds {@code modelName} around every call of {@code iterator}, for lazy
+     * results consumed by another caller.
+     */
+    public static <T> Iterator<T> bind(String modelName, Iterator<T> iterator) {
+        ModelMetrics metrics = forModel(modelName);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                ModelMetrics previous = CURRENT.get();
+                CURRENT.set(metrics);
+                try {
+                    return iterator.hasNext();
+                } finally {
+                    CURRENT.set(previous);
+                }
+            }
+
+            @Override
+            public T next() {
+                ModelMetrics previous = CURRENT.get();
+                CURRENT.set(metrics);
+                try {
+                    return iterator.next();
+                } finally {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the metrics bound to this thread, or null
+     */
+    public static ModelMetrics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Records one occurrence of {@code stage} that started at
+     * {@code startNanos} for the model bound to this thread.
+     */
+    public static void record(Stage stage, long startNanos, long items) {
+        ModelMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.record(stage, System.nanoTime() - startNanos, items);
+        }
+    }
+
+    public static ModelMetrics forModel(String modelName) {
+        return MODELS.computeIfAbsent(modelName, name -> {
+            ModelMetrics metrics = new ModelMetrics(name);
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName objectName = objectName(name);
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(metrics, objectName);
+                }
+            } catch (JMException e) {
+                System.out.printf("Failed to register metrics MBean of %s: %s%n", name, e.getMessage());
+            }
+            return metrics;
+        });
+    }
+
+    public static Map<String, ModelMetrics> all() {
+        return Map.copyOf(MODELS);
+    }
+
+    /**
+     * Drops the metrics of a model, e.g. when it is dropped.
+     */
+    public static void remove(String modelName) {
+        if (MODELS.remove(modelName) == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(modelName);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            System.out.printf("Failed to unregister metrics MBean of %s: %s%n", modelName, e.getMessage());
+        }
+    }
+
+    private static ObjectName objectName(String modelName) throws JMException {
+        return new ObjectName("app.adada.neo4j:type=Metrics,model=" + ObjectName.quote(modelName));
+    }
+}
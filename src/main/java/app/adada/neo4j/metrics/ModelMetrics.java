@@ -0,0 +1,60 @@
+package app.adada.neo4j.metrics;
+
+import app.adada.neo4j.util.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histograms and item counters per {@link Stage} of one
+ * model.
+ */
+public class ModelMetrics implements ModelMetricsMXBean {
+
+    private final String modelName;
+    private final Histogram[] micros = new Histogram[Stage.values().length];
+    private final LongAdder[] items = new LongAdder[Stage.values().length];
+
+    ModelMetrics(String modelName) {
+        this.modelName = modelName;
+        for (int i = 0; i < micros.length; i++) {
+            micros[i] = new Histogram();
+            items[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos elapsed time of one occurrence of {@code stage}
+     * @param count items it processed, see {@link Stage}
+     */
+    public void record(Stage stage, long nanos, long count) {
+        micros[stage.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        items[stage.ordinal()].add(count);
+    }
+
+    public Histogram micros(Stage stage) {
+        return micros[stage.ordinal()];
+    }
+
+    public long items(Stage stage) {
+        return items[stage.ordinal()].sum();
+    }
+
+    @Override
+    public String getModelName() {
+        return modelName;
+    }
+
+    @Override
+    public Map<String, StageStats> getStages() {
+        Map<String, StageStats> stages = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = micros(stage);
+            stages.put(stage.key(), new StageStats(histogram.count(), items(stage), histogram.mean(),
+                    histogram.percentile(0.50), histogram.percentile(0.99), histogram.max()));
+        }
+        return stages;
+    }
+}
@@ -0,0 +1,63 @@
+package app.adada.neo4j.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics of one model, registered as
+ * {@code app.adada.neo4j:type=Metrics,model=<modelName>}.
+ */
+public interface ModelMetricsMXBean {
+
+    String getModelName();
+
+    /**
+     * @return the statistics of every stage, by {@link Stage#key()}
+     */
+    Map<String, StageStats> getStages();
+
+    /**
+     * Snapshot of one stage, in microseconds.
+     */
+    class StageStats {
+        private final long count;
+        private final long items;
+        private final double meanMicros;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        public StageStats(long count, long items, double meanMicros, long p50Micros, long p99Micros,
+                long maxMicros) {
+            this.count = count;
+            this.items = items;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getItems() {
+            return items;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package app.adada.neo4j.metrics;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accounts the native memory of the NDArrays of one training or inference
+ * job.
+ *
+ * <p>
+ * A job creates its arrays under one root manager, directly or through sub
+ * managers such as the per-batch managers of the dataset iterator, so the
+ * open arrays of the whole hierarchy are the live native bytes of the job.
+ * They are counted at checkpoints, e.g. after each batch is fetched and
+ * computed. An array seen for the first time is attributed to the checkpoint,
+ * which is its allocation site to within one phase of one batch. A job that
+ * holds more than {@code maxNativeBytes} fails at the next checkpoint, before
+ * its arrays grow further, and arrays still open when it ends are reported as
+ * leaks.
+ */
+public class NativeMemoryTracker {
+
+    /** Leaked arrays listed in a report, largest first. */
+    private static final int MAX_REPORTED = 20;
+
+    private final String job;
+    private final NDManager root;
+    private final long maxNativeBytes;
+    private Map<String, String> sites = new HashMap<>();
+    private long liveBytes;
+    private long peakBytes;
+
+    /**
+     * @param job            the job name, for messages
+     * @param root           the manager all arrays of the job are created under
+     * @param maxNativeBytes the budget of live bytes, or 0 for none
+     */
+    public NativeMemoryTracker(String job, NDManager root, long maxNativeBytes) {
+        if (maxNativeBytes < 0) {
+            throw new IllegalArgumentException("`maxNativeBytes` must not be negative");
+        }
+        this.job = job;
+        this.root = root;
+        this.maxNativeBytes = maxNativeBytes;
+    }
+
+    /**
+     * Counts the open arrays, attributing new ones to {@code site}.
+     *
+     * @throws IllegalStateException if the job exceeds its budget
+     */
+    public void checkpoint(String site) {
+        Map<String, String> live = new HashMap<>();
+        long bytes = 0;
+        for (NDArray array : root.getManagedArrays()) {
+            live.put(array.getUid(), sites.getOrDefault(array.getUid(), site));
+            bytes += bytes(array);
+        }
+        sites = live;
+        liveBytes = bytes;
+        peakBytes = Math.max(peakBytes, bytes);
+        if (maxNativeBytes > 0 && bytes > maxNativeBytes) {
+            throw new IllegalStateException(String.format(
+                    "%s holds %d bytes of native arrays at %s, more than maxNativeBytes %d. Largest: %s",
+                    job, bytes, site, maxNativeBytes, openArrays(3)));
+        }
+    }
+
+    private static long bytes(NDArray array) {
+        return array.size() * array.getDataType().getNumOfBytes();
+    }
+
+    public long liveBytes() {
+        return liveBytes;
+    }
+
+    public long peakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * Counts the arrays still open at the end of the job and logs them.
+     *
+     * @return the largest open arrays with their name, manager, shape, bytes
+     *         and allocation site
+     */
+    public List<Map<String, Object>> finish() {
+        checkpoint("end of job");
+        List<Map<String, Object>> open = openArrays(MAX_REPORTED);
+        if (!open.isEmpty()) {
+            System.out.printf("%s left %d native arrays (%d bytes) open: %s%n", job, sites.size(), liveBytes, open);
+        }
+        return open;
+    }
+
+    private List<Map<String, Object>> openArrays(int limit) {
+        List<NDArray> arrays = new ArrayList<>(root.getManagedArrays());
+        arrays.sort(Comparator.comparingLong(NativeMemoryTracker::bytes).reversed());
+        List<Map<String, Object>> open = new ArrayList<>();
+        for (NDArray array : arrays.subList(0, Math.min(limit, arrays.size()))) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", array.getName());
+            entry.put("manager", array.getManager().getName());
+            entry.put("shape", array.getShape().toString());
+            entry.put("dataType", array.getDataType().toString());
+            entry.put("bytes", bytes(array));
+            entry.put("site", sites.getOrDefault(array.getUid(), "unknown"));
+            open.add(entry);
+        }
+        return open;
+    }
+}
@@ -0,0 +1,31 @@
+package app.adada.neo4j.metrics;
+
+/**
+ * Timed stages of training and inference.
+ */
+public enum Stage {
+    /** Neighborhood traversal; items are sampled edges. */
+    SAMPLING("sampling"),
+    /** Reading node features into the feature matrix; items are nodes. */
+    FEATURE_GATHER("featureGather"),
+    /** Copying sampled subgraphs into NDArrays; items are bytes. */
+    NDARRAY_CREATION("ndarrayCreation"),
+    /** Forward passes; items are input nodes. */
+    FORWARD("forward"),
+    /** Loss and gradient computation; items are batches. */
+    BACKWARD("backward"),
+    /** Optimizer updates; items are steps. */
+    STEP("step"),
+    /** Committing result properties; items are nodes written. */
+    WRITE_BACK("writeBack");
+
+    private final String key;
+
+    Stage(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+}
@@ -0,0 +1,166 @@
+package app.adada.neo4j.procedure;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import app.adada.neo4j.gnn.GnnModel.Prediction;
+import app.adada.neo4j.gnn.embedding.EmbeddingStore;
+import app.adada.neo4j.gnn.embedding.EmbeddingStoreConfig;
+import app.adada.neo4j.gnn.embedding.HnswConfig;
+import app.adada.neo4j.gnn.embedding.HnswIndex;
+import app.adada.neo4j.gnn.graphsage.GraphSageInferConfig;
+import app.adada.neo4j.gnn.graphsage.GraphSageModel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Neo4j Procedures for the embedding store kept next to a trained model.
+ */
+public class Embedding {
+
+    @Context
+    public Transaction tx;
+
+    public static class StoreResult {
+        public final Long nodeCount;
+        public final String encoding;
+        public final Long dimension;
+        public final String path;
+        public final Long writeMillis;
+
+        public StoreResult(Long nodeCount, String encoding, Long dimension, String path, Long writeMillis) {
+            this.nodeCount = nodeCount;
+            this.encoding = encoding;
+            this.dimension = dimension;
+            this.path = path;
+            this.writeMillis = writeMillis;
+        }
+    }
+
+    public static class EmbeddingResult {
+        public final Long nodeId;
+        public final Object embedding; // float[], emitted without boxing
+
+        public EmbeddingResult(Long nodeId, Object embedding) {
+            this.nodeId = nodeId;
+            this.embedding = embedding;
+        }
+    }
+
+    public static class IndexResult {
+        public final Long nodeCount;
+        public final String path;
+        public final Long buildMillis;
+
+        public IndexResult(Long nodeCount, String path, Long buildMillis) {
+            this.nodeCount = nodeCount;
+            this.path = path;
+            this.buildMillis = buildMillis;
+        }
+    }
+
+    public static class NeighborResult {
+        public final Long nodeId;
+        public final Double score;
+
+        public NeighborResult(Long nodeId, Double score) {
+            this.nodeId = nodeId;
+            this.score = score;
+        }
+    }
+
+    @Procedure(name = "neotorch.embedding.write", mode = Mode.READ)
+    @Description("CALL neotorch.embedding.write(modelName, nodes, {encoding, batchSize, ...}) YIELD nodeCount. " +
+            "Embeds 'nodes' and replaces the model's embedding store (float32, float16 or int8 rows).")
+    @SuppressWarnings("removal")
+    public Stream<StoreResult> write(
+            @Name("modelName") String modelName,
+            @Name("nodes") List<Node> nodes,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        GraphSageInferConfig inferConfig = GraphSageInferConfig.fromMap(config);
+        EmbeddingStore.Encoding encoding = EmbeddingStore.Encoding.parse(EmbeddingStoreConfig.fromMap(config).encoding());
+        int dim = sageModel.config().supervised() ? sageModel.config().classDimension().intValue()
+                : sageModel.config().embeddingDimension().intValue();
+        long rows = nodes.stream().mapToLong(Node::getId).max().orElse(-1L) + 1;
+
+        long start = System.currentTimeMillis();
+        long written;
+        try (EmbeddingStore.Writer writer = EmbeddingStore.create(sageModel.embeddingStorePath(), dim, rows,
+                encoding, sageModel.parametersStamp());
+                Stream<Prediction> embeddings = sageModel.stream(nodes, inferConfig)) {
+            embeddings.forEach(prediction -> writer.put(prediction.nodeId, (float[]) prediction.predictionValue));
+            writer.commit();
+            written = writer.written();
+        }
+        long writeMillis = System.currentTimeMillis() - start;
+        System.out.printf("EmbeddingProcedures.write: %d %s rows written in %d ms%n", written, encoding, writeMillis);
+
+        return Stream.of(new StoreResult(written, encoding.name().toLowerCase(), (long) dim,
+                sageModel.embeddingStorePath().toString(), writeMillis));
+    }
+
+    @Procedure(name = "neotorch.embedding.get", mode = Mode.READ)
+    @Description("CALL neotorch.embedding.get(modelName, nodes) YIELD nodeId, embedding. " +
+            "Reads stored embeddings of 'nodes'; nodes without a stored row are skipped.")
+    @SuppressWarnings("removal")
+    public Stream<EmbeddingResult> get(
+            @Name("modelName") String modelName,
+            @Name("nodes") List<Node> nodes) {
+
+        EmbeddingStore store = new GraphSageModel(tx, modelName).load().embeddingStore();
+        return nodes.stream()
+                .map(node -> new EmbeddingResult(node.getId(), store.get(node.getId())))
+                .filter(result -> result.embedding != null);
+    }
+
+    @Procedure(name = "neotorch.embedding.index.build", mode = Mode.READ)
+    @Description("CALL neotorch.embedding.index.build(modelName, {M, efConstruction}) YIELD nodeCount. " +
+            "Builds an HNSW index over the model's embedding store and saves it next to the store.")
+    public Stream<IndexResult> buildIndex(
+            @Name("modelName") String modelName,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        HnswConfig hnswConfig = HnswConfig.fromMap(config);
+
+        long start = System.currentTimeMillis();
+        HnswIndex index = HnswIndex.build(sageModel.embeddingStore(), hnswConfig.M().intValue(),
+                hnswConfig.efConstruction().intValue(), hnswConfig.concurrency().intValue(),
+                hnswConfig.randomSeed());
+        index.save(sageModel.hnswIndexPath());
+        long buildMillis = System.currentTimeMillis() - start;
+        System.out.printf("EmbeddingProcedures.buildIndex: %d nodes indexed in %d ms%n", index.size(), buildMillis);
+
+        return Stream.of(new IndexResult((long) index.size(), sageModel.hnswIndexPath().toString(), buildMillis));
+    }
+
+    @Procedure(name = "neotorch.embedding.knn", mode = Mode.READ)
+    @Description("CALL neotorch.embedding.knn(modelName, node, k, {ef}) YIELD nodeId, score. " +
+            "Approximate k nearest neighbors of 'node' by cosine similarity, using the model's HNSW index.")
+    @SuppressWarnings("removal")
+    public Stream<NeighborResult> knn(
+            @Name("modelName") String modelName,
+            @Name("node") Node node,
+            @Name("k") Long k,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        HnswConfig hnswConfig = HnswConfig.fromMap(config);
+        float[] query = sageModel.embeddingStore().get(node.getId());
+        if (query == null) {
+            throw new IllegalArgumentException("Node " + node.getId() + " has no stored embedding");
+        }
+
+        return sageModel.hnswIndex().search(query, k.intValue(), hnswConfig.ef().intValue(), node.getId()).stream()
+                .map(neighbor -> new NeighborResult(neighbor.nodeId(), neighbor.score()));
+    }
+}
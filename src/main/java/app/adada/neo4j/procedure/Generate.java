@@ -0,0 +1,60 @@
+package app.adada.neo4j.procedure;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import app.adada.neo4j.algo.generator.GraphGenerator;
+import app.adada.neo4j.algo.generator.GraphGeneratorConfig;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Neo4j Procedures for generating synthetic graphs.
+ */
+public class Generate {
+
+    @Context
+    public GraphDatabaseService db;
+
+    public static class GenerateResult {
+        public final Long nodes;
+        public final Long relationships;
+        public final String model;
+        public final Long seed;
+        public final Long generateMillis;
+        public final Long writeMillis;
+        public final Double relationshipsPerSecond;
+
+        public GenerateResult(Long nodes, Long relationships, String model, Long seed, Long generateMillis,
+                Long writeMillis, Double relationshipsPerSecond) {
+            this.nodes = nodes;
+            this.relationships = relationships;
+            this.model = model;
+            this.seed = seed;
+            this.generateMillis = generateMillis;
+            this.writeMillis = writeMillis;
+            this.relationshipsPerSecond = relationshipsPerSecond;
+        }
+    }
+
+    @Procedure(name = "neotorch.generate.graph", mode = Mode.WRITE)
+    @Description("CALL neotorch.generate.graph([config]) YIELD nodes, relationships, model, seed, generateMillis, "
+            + "writeMillis, relationshipsPerSecond. Creates a random graph of 'nodes' nodes with 'featureDim' "
+            + "features and 'labels' classes, linked by the er, ba or rmat model, in parallel transactions. "
+            + "'avgDegree' is the average out-degree: nodes * avgDegree relationships are created.")
+    public Stream<GenerateResult> graph(
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        GraphGeneratorConfig generatorConfig = GraphGeneratorConfig.fromMap(config);
+        GraphGenerator.Stats stats = new GraphGenerator(db, generatorConfig).generate();
+        System.out.printf("neotorch.generate.graph: %d nodes, %d relationships (%s) in %d ms%n", stats.nodes(),
+                stats.relationships(), generatorConfig.model(), stats.generateMillis() + stats.writeMillis());
+        return Stream.of(new GenerateResult(stats.nodes(), stats.relationships(), generatorConfig.model(),
+                generatorConfig.seed(), stats.generateMillis(), stats.writeMillis(),
+                stats.writeMillis() == 0 ? 0.0 : stats.relationships() * 1000.0 / stats.writeMillis()));
+    }
+}
@@ -1,5 +1,7 @@
 package app.adada.neo4j.procedure;
 
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.procedure.Context;
@@ -11,13 +13,38 @@ import org.neo4j.procedure.Procedure;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import app.adada.neo4j.algo.Dependents;
+import app.adada.neo4j.algo.RandomNodes;
+import app.adada.neo4j.event.DirtyTracker;
+import app.adada.neo4j.gnn.GnnModel.Prediction;
+import app.adada.neo4j.gnn.dataset.CostBalancedSampler;
+import app.adada.neo4j.gnn.dataset.DeltaReplaySampler;
 import app.adada.neo4j.gnn.dataset.GnnDataset;
+import app.adada.neo4j.gnn.graphsage.GraphSageContinualConfig;
+import app.adada.neo4j.gnn.graphsage.GraphSageDispatchConfig;
+import app.adada.neo4j.gnn.graphsage.GraphSageInferConfig;
+import app.adada.neo4j.gnn.graphsage.GraphSageLinkConfig;
 import app.adada.neo4j.gnn.graphsage.GraphSageModel;
 import app.adada.neo4j.gnn.graphsage.GraphSageModelConfig;
+import app.adada.neo4j.gnn.graphsage.GraphSagePredictConfig;
+import app.adada.neo4j.gnn.graphsage.GraphSageQuantizeConfig;
 import app.adada.neo4j.gnn.graphsage.GraphSageTrainConfig;
+import app.adada.neo4j.gnn.graphsage.GraphSageWriteConfig;
+import app.adada.neo4j.gnn.inference.InferenceDispatcher;
+import app.adada.neo4j.gnn.inference.SampledClassification;
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.util.BatchedPropertyWriter;
+import app.adada.neo4j.util.LongBitSet;
+import app.adada.neo4j.util.ReservoirSampling;
+import app.adada.neo4j.util.VectorIndexes;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.List; // For nodeIds in predict, a common way to pass collections
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -29,6 +56,9 @@ public class GraphSage {
     @Context
     public Transaction tx;
 
+    @Context
+    public GraphDatabaseService db;
+
     // --- Procedure Result Inner Classes ---
     // These mirror the structure from your original request for procedure outputs.
 
@@ -52,6 +82,105 @@ public class GraphSage {
         }
     }
 
+    public static class EmbeddingResult {
+        public final Long nodeId;
+        public final Object embedding; // float[], emitted without boxing
+
+        public EmbeddingResult(Long nodeId, Object embedding) {
+            this.nodeId = nodeId;
+            this.embedding = embedding;
+        }
+    }
+
+    public static class WriteResult {
+        public final Long nodeCount;
+        public final String writeProperty;
+        public final Long writeMillis;
+        public final Double nodesPerSecond;
+        public final String indexName;
+
+        public WriteResult(Long nodeCount, String writeProperty, Long writeMillis, Double nodesPerSecond,
+                String indexName) {
+            this.nodeCount = nodeCount;
+            this.writeProperty = writeProperty;
+            this.writeMillis = writeMillis;
+            this.nodesPerSecond = nodesPerSecond;
+            this.indexName = indexName;
+        }
+    }
+
+    public static class RefreshResult {
+        public final Long changedNodes;
+        public final Long nodeCount;
+        public final String writeProperty;
+        public final Long writeMillis;
+
+        public RefreshResult(Long changedNodes, Long nodeCount, String writeProperty, Long writeMillis) {
+            this.changedNodes = changedNodes;
+            this.nodeCount = nodeCount;
+            this.writeProperty = writeProperty;
+            this.writeMillis = writeMillis;
+        }
+    }
+
+    public static class PredictResult {
+        public final Long nodeId;
+        public final Long predictedClass;
+        public final Double probability;
+        public final Object classes; // long[], most probable first
+        public final Object probabilities; // float[]
+
+        public PredictResult(Long nodeId, Long predictedClass, Double probability, Object classes,
+                Object probabilities) {
+            this.nodeId = nodeId;
+            this.predictedClass = predictedClass;
+            this.probability = probability;
+            this.classes = classes;
+            this.probabilities = probabilities;
+        }
+    }
+
+    public static class LinkScoreResult {
+        public final Long source;
+        public final Long target;
+        public final Double score;
+
+        public LinkScoreResult(Long source, Long target, Double score) {
+            this.source = source;
+            this.target = target;
+            this.score = score;
+        }
+    }
+
+    public static class QuantizeResult {
+        public final String modelName;
+        public final Long version;
+        public final String artifact;
+        public final Map<String, Object> drift;
+
+        public QuantizeResult(String modelName, Long version, String artifact, Map<String, Object> drift) {
+            this.modelName = modelName;
+            this.version = version;
+            this.artifact = artifact;
+            this.drift = drift;
+        }
+    }
+
+    public static class DispatcherResult {
+        public final String modelName;
+        public final Long requests;
+        public final Map<String, Object> batchNodes;
+        public final Map<String, Object> queueWaitMicros;
+
+        public DispatcherResult(String modelName, Long requests, Map<String, Object> batchNodes,
+                Map<String, Object> queueWaitMicros) {
+            this.modelName = modelName;
+            this.requests = requests;
+            this.batchNodes = batchNodes;
+            this.queueWaitMicros = queueWaitMicros;
+        }
+    }
+
     public static class DropResult {
         public final String modelName;
 
@@ -74,17 +203,30 @@ public class GraphSage {
         GraphSageModel sageModel = new GraphSageModel(tx, modelName);
         GraphSageModelConfig modelConfig = GraphSageModelConfig.fromMap(config);
         GraphSageTrainConfig trainingConfig = GraphSageTrainConfig.fromMap(config);
+        if (trainingConfig.quantize() && "java".equals(modelConfig.builder())) {
+            throw new IllegalArgumentException("`quantize` is only supported for models built by the python builder");
+        }
 
         System.out.println("GraphSAGEProcedures.train: Training with " + nodes.size() + " nodes.");
 
-        GnnDataset trainingDataset = GnnDataset.builder(trainingConfig.randomSeed().intValue())
+        GnnDataset.Builder builder = GnnDataset.builder(trainingConfig.randomSeed().intValue())
                 .setTransaction(tx)
                 .setNodes(nodes)
-                .setConfig(modelConfig)
-                .setSampling(trainingConfig.batchSize().intValue(), true)
-                .build(modelConfig.supervised());
+                .setConfig(modelConfig);
+        if (GraphSageTrainConfig.BALANCED.equals(trainingConfig.batchComposition())) {
+            builder.setSampling(new CostBalancedSampler(CostBalancedSampler.expansionCosts(nodes, modelConfig),
+                    trainingConfig.batchSize().intValue(), trainingConfig.randomSeed()));
+        } else {
+            builder.setSampling(trainingConfig.batchSize().intValue(), true);
+        }
+        GnnDataset trainingDataset = builder.build(modelConfig.supervised());
 
-        Map<String, Object> modelInfo = sageModel.create(modelConfig).train(trainingConfig, trainingDataset, null);
+        Map<String, Object> modelInfo = sageModel.createOrLoad(modelConfig).train(trainingConfig, trainingDataset,
+                null);
+        if (trainingConfig.quantize()) {
+            QuantizeResult quantized = quantize(sageModel, nodes.iterator(), config);
+            modelInfo.put("quantization", Map.of("artifact", quantized.artifact, "drift", quantized.drift));
+        }
         // } catch (Exception e) {
         // System.err.println("GraphSAGEProcedures.train: Exception occurred during
         // training.");
@@ -100,29 +242,352 @@ public class GraphSage {
         return Stream.of(new TrainResult(modelInfo, configurationMap));
     }
 
-    // @Procedure(name = "torch.graphsage.infer", mode = Mode.READ)
-    // @Description("CALL torch.graphsage.infer(modelName, nodes, [config]) YIELD
-    // nodeId, infer. " +
-    // "'nodes' is a list of Neo4j internal node IDs. 'config' is optional.")
-    // public Stream<InferResult> infer(
-    // @Name("modelName") String modelName,
-    // @Name("nodes") List<Node> nodes, // Using List<Long> as it's common for node
-    // ID collections
-    // @Name(value = "config", defaultValue = "{}") Map<String, Object>
-    // predictConfig) {
-
-    // if (nodes == null || nodes.isEmpty()) {
-    // System.out.println("GraphSAGEProcedures.predict: Node list is empty or null.
-    // Returning empty stream.");
-    // return Stream.empty();
-    // }
-
-    // GraphSageModel sageModel = new GraphSageModel(tx);
-
-    // return sageModel.predict(modelName, nodes, predictConfig)
-    // .map(gnnPrediction -> new InferResult(gnnPrediction.nodeId,
-    // gnnPrediction.predictionValue));
-    // }
+    @Procedure(name = "neotorch.graphsage.trainContinual", mode = Mode.WRITE)
+    @Description("CALL neotorch.graphsage.trainContinual(modelName, [config]) YIELD modelInfo. " +
+            "Warm-starts from the saved model and trains a bounded number of steps on nodes changed since the " +
+            "last run, mixed with a replay sample of the other nodes; saves the result as a new version.")
+    @SuppressWarnings("removal")
+    public Stream<TrainResult> trainContinual(
+            @Name("modelName") String modelName,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        GraphSageModelConfig modelConfig = sageModel.config();
+        if (modelConfig.supervised()) {
+            throw new IllegalArgumentException("Continual training is only supported for unsupervised models");
+        }
+        GraphSageContinualConfig continualConfig = GraphSageContinualConfig.fromMap(config);
+        DirtyTracker tracker = DirtyTracker.forModel(db.databaseName(), modelName);
+
+        LongBitSet changed = tracker.drain(DirtyTracker.Channel.TRAINING);
+        try {
+            List<Node> delta = Dependents.resolve(tx, changed, 0, modelConfig.nodeLabels(),
+                    modelConfig.relationshipTypes());
+            Map<String, Object> modelInfo;
+            if (delta.isEmpty()) {
+                modelInfo = new HashMap<>();
+                modelInfo.put("name", modelName);
+                modelInfo.put("type", sageModel.getModelType());
+                modelInfo.put("version", sageModel.version());
+                modelInfo.put("metrics", Map.of("steps", 0L));
+            } else {
+                long replaySize = Math.min(Integer.MAX_VALUE - delta.size(), Math.round(continualConfig.steps()
+                        * continualConfig.batchSize() * (1 - continualConfig.deltaFraction())));
+                long idBound = delta.stream().mapToLong(Node::getId).max().getAsLong() + 1;
+                List<Node> replay = RandomNodes.sample(tx, (int) replaySize, modelConfig.nodeLabels(), idBound,
+                        changed::get, continualConfig.randomSeed());
+                System.out.printf("GraphSAGEProcedures.trainContinual: %d changed nodes, %d replay nodes%n",
+                        delta.size(), replay.size());
+
+                List<Node> nodes = new ArrayList<>(delta.size() + replay.size());
+                nodes.addAll(delta);
+                nodes.addAll(replay);
+                GnnDataset dataset = GnnDataset.builder(continualConfig.randomSeed().intValue())
+                        .setTransaction(tx)
+                        .setNodes(nodes)
+                        .setConfig(modelConfig)
+                        .setSampling(new DeltaReplaySampler(delta.size(), continualConfig.batchSize().intValue(),
+                                continualConfig.steps().intValue(), continualConfig.deltaFraction(),
+                                continualConfig.randomSeed()))
+                        .build(false);
+                modelInfo = sageModel.trainContinual(continualConfig, dataset);
+                modelInfo.put("deltaNodes", (long) delta.size());
+                modelInfo.put("replayNodes", (long) replay.size());
+            }
+            ObjectMapper mapper = new ObjectMapper();
+            return Stream.of(new TrainResult(modelInfo,
+                    mapper.convertValue(continualConfig, new TypeReference<Map<String, Object>>() {
+                    })));
+        } catch (RuntimeException e) {
+            tracker.restore(DirtyTracker.Channel.TRAINING, changed);
+            throw e;
+        }
+    }
+
+    private Iterator<Node> modelNodes(List<String> nodeLabels) {
+        if (nodeLabels.contains("*")) {
+            return tx.getAllNodes().iterator();
+        }
+        return nodeLabels.stream()
+                .flatMap(label -> tx.findNodes(Label.label(label)).stream())
+                .iterator();
+    }
+
+    @Procedure(name = "neotorch.graphsage.infer", mode = Mode.READ)
+    @Description("CALL neotorch.graphsage.infer(modelName, nodes, [config]) YIELD nodeId, infer. " +
+            "Exact layer-wise inference over the whole model graph; returns the embeddings of 'nodes'.")
+    public Stream<InferResult> infer(
+            @Name("modelName") String modelName,
+            @Name("nodes") List<Node> nodes,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        if (nodes == null || nodes.isEmpty()) {
+            System.out.println("GraphSAGEProcedures.infer: Node list is empty or null. Returning empty stream.");
+            return Stream.empty();
+        }
+
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        GraphSageInferConfig inferConfig = GraphSageInferConfig.fromMap(config);
+
+        return sageModel.infer(nodes, inferConfig)
+                .map(prediction -> new InferResult(prediction.nodeId, prediction.predictionValue));
+    }
+
+    @Procedure(name = "neotorch.graphsage.stream", mode = Mode.READ)
+    @Description("CALL neotorch.graphsage.stream(modelName, nodes, [config]) YIELD nodeId, embedding. " +
+            "Lazily embeds 'nodes' in sampled mini-batches of 'batchSize'.")
+    public Stream<EmbeddingResult> stream(
+            @Name("modelName") String modelName,
+            @Name("nodes") List<Node> nodes,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        if (nodes == null || nodes.isEmpty()) {
+            return Stream.empty();
+        }
+
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        GraphSageInferConfig inferConfig = GraphSageInferConfig.fromMap(config);
+
+        return sageModel.stream(nodes, inferConfig)
+                .map(prediction -> new EmbeddingResult(prediction.nodeId, prediction.predictionValue));
+    }
+
+    @Procedure(name = "neotorch.graphsage.embed", mode = Mode.READ)
+    @Description("CALL neotorch.graphsage.embed(modelName, nodes, [config]) YIELD nodeId, embedding. " +
+            "Embeds 'nodes' through the model's dispatcher, which merges concurrent calls into shared batches.")
+    @SuppressWarnings("removal")
+    public Stream<EmbeddingResult> embed(
+            @Name("modelName") String modelName,
+            @Name("nodes") List<Node> nodes,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        if (nodes == null || nodes.isEmpty()) {
+            return Stream.empty();
+        }
+
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        GraphSageInferConfig inferConfig = GraphSageInferConfig.fromMap(config);
+        GraphSageDispatchConfig dispatchConfig = GraphSageDispatchConfig.fromMap(config);
+
+        long[] nodeIds = nodes.stream().mapToLong(Node::getId).toArray();
+        float[][] embeddings = InferenceDispatcher.forModel(db, sageModel, inferConfig)
+                .embed(nodeIds, dispatchConfig.maxDelayMicros(), dispatchConfig.maxBatchNodes().intValue());
+        return IntStream.range(0, nodeIds.length)
+                .mapToObj(i -> new EmbeddingResult(nodeIds[i], embeddings[i]));
+    }
+
+    @Procedure(name = "neotorch.graphsage.predict", mode = Mode.READ)
+    @Description("CALL neotorch.graphsage.predict(modelName, nodes, [config]) YIELD nodeId, predictedClass, " +
+            "probability, classes, probabilities. Top-k classes of 'nodes' under a supervised model.")
+    public Stream<PredictResult> predict(
+            @Name("modelName") String modelName,
+            @Name("nodes") List<Node> nodes,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        if (nodes == null || nodes.isEmpty()) {
+            return Stream.empty();
+        }
+
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        GraphSageInferConfig inferConfig = GraphSageInferConfig.fromMap(config);
+        GraphSagePredictConfig predictConfig = GraphSagePredictConfig.fromMap(config);
+
+        return sageModel.classify(nodes, inferConfig, predictConfig.topK().intValue())
+                .map(top -> new PredictResult(top.nodeId(), top.classes()[0], (double) top.probabilities()[0],
+                        top.classes(), top.probabilities()));
+    }
+
+    @Procedure(name = "neotorch.graphsage.predict.write", mode = Mode.WRITE)
+    @Description("CALL neotorch.graphsage.predict.write(modelName, nodes, {writeProperty, ...}) YIELD nodeCount. " +
+            "Writes the most probable class of 'nodes' as an integer property in parallel batched transactions.")
+    public Stream<WriteResult> predictWrite(
+            @Name("modelName") String modelName,
+            @Name("nodes") List<Node> nodes,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        GraphSageInferConfig inferConfig = GraphSageInferConfig.fromMap(config);
+        GraphSageWriteConfig writeConfig = GraphSageWriteConfig.fromMap(config);
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+
+        if (nodes.isEmpty()) {
+            return Stream.of(new WriteResult(0L, writeConfig.writeProperty(), 0L, 0.0, null));
+        }
+        long written;
+        long writeMillis;
+        try (MetricsRegistry.Scope scope = MetricsRegistry.bind(sageModel.getModelName());
+                BatchedPropertyWriter writer = new BatchedPropertyWriter(db, writeConfig.writeProperty(),
+                writeConfig.writeConcurrency().intValue(), writeConfig.writeBatchSize().intValue());
+                Stream<SampledClassification.NodeClasses> classes = sageModel.classify(nodes, inferConfig, 1)) {
+            classes.forEach(top -> writer.add(top.nodeId(), top.classes()[0]));
+            written = writer.finish();
+            // Classification overlaps the writes and is not counted
+            writeMillis = TimeUnit.NANOSECONDS.toMillis(writer.writeNanos());
+        }
+        System.out.printf("GraphSAGEProcedures.predict.write: %d nodes written in %d ms%n", written, writeMillis);
+
+        return Stream.of(new WriteResult(written, writeConfig.writeProperty(), writeMillis,
+                written * 1000.0 / Math.max(1, writeMillis), null));
+    }
+
+    @Procedure(name = "neotorch.graphsage.linkScore", mode = Mode.READ)
+    @Description("CALL neotorch.graphsage.linkScore(modelName, pairs, [config]) YIELD source, target, score. " +
+            "Scores [source, target] node pairs by the sigmoid of their embeddings' inner product.")
+    @SuppressWarnings("removal")
+    public Stream<LinkScoreResult> linkScore(
+            @Name("modelName") String modelName,
+            @Name("pairs") List<List<Node>> pairs,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        if (pairs == null || pairs.isEmpty()) {
+            return Stream.empty();
+        }
+
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        GraphSageLinkConfig linkConfig = GraphSageLinkConfig.fromMap(config);
+        GraphSageInferConfig defaults = GraphSageInferConfig.fromMap(config);
+        GraphSageInferConfig inferConfig = new GraphSageInferConfig(defaults.maxGpus(), defaults.randomSeed(),
+                linkConfig.inferBatchSize(), defaults.precision(), defaults.maxNativeBytes());
+
+        // Every endpoint is embedded once, however many pairs it is part of
+        Map<Long, Integer> rows = new HashMap<>();
+        List<Node> nodes = new ArrayList<>();
+        long[] sources = new long[pairs.size()];
+        long[] targets = new long[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            List<Node> pair = pairs.get(i);
+            if (pair == null || pair.size() != 2 || pair.get(0) == null || pair.get(1) == null) {
+                throw new IllegalArgumentException("Every entry of `pairs` must be a [source, target] list of nodes");
+            }
+            sources[i] = rows.computeIfAbsent(pair.get(0).getId(), id -> {
+                nodes.add(pair.get(0));
+                return nodes.size() - 1;
+            });
+            targets[i] = rows.computeIfAbsent(pair.get(1).getId(), id -> {
+                nodes.add(pair.get(1));
+                return nodes.size() - 1;
+            });
+        }
+
+        float[] scores = sageModel.scoreLinks(nodes, sources, targets, inferConfig,
+                linkConfig.batchSize().intValue());
+        return IntStream.range(0, scores.length)
+                .mapToObj(i -> new LinkScoreResult(pairs.get(i).get(0).getId(), pairs.get(i).get(1).getId(),
+                        (double) scores[i]));
+    }
+
+    @Procedure(name = "neotorch.graphsage.quantize", mode = Mode.READ)
+    @Description("CALL neotorch.graphsage.quantize(modelName, [config]) YIELD modelName, version, artifact, drift. " +
+            "Writes a dynamically quantized int8 artifact of the current version, used by inference with " +
+            "precision: 'int8', and reports the cosine drift of its embeddings from float32 on a node sample.")
+    public Stream<QuantizeResult> quantize(
+            @Name("modelName") String modelName,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        return Stream.of(quantize(sageModel, modelNodes(sageModel.config().nodeLabels()), config));
+    }
+
+    private QuantizeResult quantize(GraphSageModel sageModel, Iterator<Node> candidates, Map<String, Object> config) {
+        GraphSageQuantizeConfig quantizeConfig = GraphSageQuantizeConfig.fromMap(config);
+        GraphSageInferConfig inferConfig = GraphSageInferConfig.fromMap(config);
+
+        String artifact = sageModel.quantize().toString();
+        List<Node> sample = ReservoirSampling.sample(candidates, quantizeConfig.driftSampleSize().intValue(),
+                node -> true);
+        Map<String, Object> drift = sageModel.quantizationDrift(sample, inferConfig);
+        System.out.printf("GraphSAGEProcedures.quantize: %s version %d, mean cosine %s over %d nodes%n",
+                sageModel.getModelName(), sageModel.version(), drift.get("meanCosine"), sample.size());
+        return new QuantizeResult(sageModel.getModelName(), (long) sageModel.version(), artifact, drift);
+    }
+
+    @Procedure(name = "neotorch.graphsage.dispatcherStats", mode = Mode.READ)
+    @Description("CALL neotorch.graphsage.dispatcherStats() YIELD modelName, requests, batchNodes, queueWaitMicros. " +
+            "Batch-size and queue-wait histograms of the running inference dispatchers.")
+    public Stream<DispatcherResult> dispatcherStats() {
+        return InferenceDispatcher.all().values().stream()
+                .map(dispatcher -> new DispatcherResult(dispatcher.modelName(), dispatcher.requests(),
+                        dispatcher.batchNodes().toMap(), dispatcher.queueWaitMicros().toMap()));
+    }
+
+    @Procedure(name = "neotorch.graphsage.write", mode = Mode.WRITE)
+    @Description("CALL neotorch.graphsage.write(modelName, nodes, {writeProperty, ...}) YIELD nodeCount. " +
+            "Embeds 'nodes' and writes the embeddings as float[] properties in parallel batched transactions.")
+    public Stream<WriteResult> write(
+            @Name("modelName") String modelName,
+            @Name("nodes") List<Node> nodes,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        GraphSageInferConfig inferConfig = GraphSageInferConfig.fromMap(config);
+        GraphSageWriteConfig writeConfig = GraphSageWriteConfig.fromMap(config);
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+
+        return Stream.of(writeEmbeddings(sageModel, nodes, inferConfig, writeConfig));
+    }
+
+    @Procedure(name = "neotorch.graphsage.refresh", mode = Mode.WRITE)
+    @Description("CALL neotorch.graphsage.refresh(modelName, {writeProperty, ...}) YIELD nodeCount. " +
+            "Re-embeds and writes only the nodes affected by graph changes since the last refresh.")
+    public Stream<RefreshResult> refresh(
+            @Name("modelName") String modelName,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        GraphSageInferConfig inferConfig = GraphSageInferConfig.fromMap(config);
+        GraphSageWriteConfig writeConfig = GraphSageWriteConfig.fromMap(config);
+        GraphSageModel sageModel = new GraphSageModel(tx, modelName).load();
+        GraphSageModelConfig modelConfig = sageModel.config();
+        DirtyTracker tracker = DirtyTracker.forModel(db.databaseName(), modelName);
+
+        LongBitSet changed = tracker.drain(DirtyTracker.Channel.REFRESH);
+        try {
+            List<Node> nodes = Dependents.resolve(tx, changed, modelConfig.sampleSizes().size(),
+                    modelConfig.nodeLabels(), modelConfig.relationshipTypes());
+            System.out.printf("GraphSAGEProcedures.refresh: %d changed nodes affect %d nodes%n",
+                    changed.cardinality(), nodes.size());
+            WriteResult result = writeEmbeddings(sageModel, nodes, inferConfig, writeConfig);
+            return Stream.of(new RefreshResult(changed.cardinality(), result.nodeCount, result.writeProperty,
+                    result.writeMillis));
+        } catch (RuntimeException e) {
+            tracker.restore(DirtyTracker.Channel.REFRESH, changed);
+            throw e;
+        }
+    }
+
+    private WriteResult writeEmbeddings(GraphSageModel sageModel, List<Node> nodes,
+            GraphSageInferConfig inferConfig, GraphSageWriteConfig writeConfig) {
+        if (nodes.isEmpty()) {
+            return new WriteResult(0L, writeConfig.writeProperty(), 0L, 0.0, null);
+        }
+        int[] dimension = { 0 };
+        long written;
+        long writeMillis;
+        try (MetricsRegistry.Scope scope = MetricsRegistry.bind(sageModel.getModelName());
+                BatchedPropertyWriter writer = new BatchedPropertyWriter(db, writeConfig.writeProperty(),
+                writeConfig.writeConcurrency().intValue(), writeConfig.writeBatchSize().intValue());
+                Stream<Prediction> embeddings = sageModel.stream(nodes, inferConfig)) {
+            embeddings.forEach(prediction -> {
+                float[] embedding = (float[]) prediction.predictionValue;
+                dimension[0] = embedding.length;
+                writer.add(prediction.nodeId, embedding);
+            });
+            written = writer.finish();
+            // Inference overlaps the writes and is not counted
+            writeMillis = TimeUnit.NANOSECONDS.toMillis(writer.writeNanos());
+        }
+        System.out.printf("GraphSAGEProcedures.write: %d nodes written in %d ms%n", written, writeMillis);
+
+        String indexName = null;
+        if (writeConfig.vectorIndex() && written > 0) {
+            List<String> labels = sageModel.config().nodeLabels();
+            if (labels.size() != 1 || labels.contains("*")) {
+                throw new IllegalArgumentException("`vectorIndex` requires the model to use exactly one node label");
+            }
+            indexName = VectorIndexes.ensure(db, labels.get(0), writeConfig.writeProperty(), dimension[0],
+                    writeConfig.vectorSimilarity());
+        }
+
+        return new WriteResult(written, writeConfig.writeProperty(), writeMillis,
+                written * 1000.0 / Math.max(1, writeMillis), indexName);
+    }
 
     @Procedure(name = "neotorch.graphsage.drop", mode = Mode.WRITE)
     @Description("CALL neotorch.graphsage.drop(modelName) YIELD model. " +
@@ -0,0 +1,49 @@
+package app.adada.neo4j.procedure;
+
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Procedure;
+
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.ModelMetrics;
+import app.adada.neo4j.metrics.Stage;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Neo4j Procedures for the per-model stage metrics.
+ */
+public class Metrics {
+
+    public static class StageResult {
+        public final String modelName;
+        public final String stage;
+        public final Long items;
+        public final Map<String, Object> micros;
+
+        public StageResult(String modelName, String stage, Long items, Map<String, Object> micros) {
+            this.modelName = modelName;
+            this.stage = stage;
+            this.items = items;
+            this.micros = micros;
+        }
+    }
+
+    @Procedure(name = "neotorch.metrics", mode = Mode.READ)
+    @Description("CALL neotorch.metrics() YIELD modelName, stage, items, micros. " +
+            "Latency histograms and item counts of sampling, feature gather, NDArray creation, forward, " +
+            "backward, optimizer step and write-back, per model since the database started.")
+    public Stream<StageResult> metrics() {
+        return MetricsRegistry.all().values().stream()
+                .sorted((a, b) -> a.getModelName().compareTo(b.getModelName()))
+                .flatMap(Metrics::stages);
+    }
+
+    private static Stream<StageResult> stages(ModelMetrics metrics) {
+        return Arrays.stream(Stage.values())
+                .map(stage -> new StageResult(metrics.getModelName(), stage.key(), metrics.items(stage),
+                        metrics.micros(stage).toMap()));
+    }
+}
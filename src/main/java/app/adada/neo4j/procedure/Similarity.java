@@ -0,0 +1,95 @@
+package app.adada.neo4j.procedure;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import app.adada.neo4j.algo.similarity.Metric;
+import app.adada.neo4j.algo.similarity.TopK;
+import app.adada.neo4j.algo.similarity.VectorKernel;
+import app.adada.neo4j.util.TypeParser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Neo4j Procedures for exact vector similarity over node embeddings.
+ */
+public class Similarity {
+
+    public static class SimilarityResult {
+        public final Long nodeId;
+        public final Double score;
+
+        public SimilarityResult(Long nodeId, Double score) {
+            this.nodeId = nodeId;
+            this.score = score;
+        }
+    }
+
+    @Procedure(name = "neotorch.similarity.topK", mode = Mode.READ)
+    @Description("CALL neotorch.similarity.topK(query, candidates, k, [metric], [config]) YIELD nodeId, score. " +
+            "Exact top-k of 'candidates' by the embedding in 'property'; 'query' is a node or a list of numbers. " +
+            "Metrics: cosine and dot (highest first), l2 (distance, lowest first).")
+    @SuppressWarnings("removal")
+    public Stream<SimilarityResult> topK(
+            @Name("query") Object query,
+            @Name("candidates") List<Node> candidates,
+            @Name("k") Long k,
+            @Name(value = "metric", defaultValue = "cosine") String metric,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        String property = TypeParser.parse(config.get("property"), String.class, "embedding");
+        int concurrency = TypeParser.parse(config.get("concurrency"), Long.class,
+                (long) Runtime.getRuntime().availableProcessors()).intValue();
+
+        float[] queryVector = query instanceof Node node ? toFloats(node.getProperty(property, null))
+                : toFloats(query);
+        if (queryVector == null) {
+            throw new IllegalArgumentException("`query` must be a node with property '" + property
+                    + "' or a list of numbers");
+        }
+        int dim = queryVector.length;
+
+        // Candidates without a matching embedding are skipped
+        float[] data = new float[Math.multiplyExact(candidates.size(), dim)];
+        long[] ids = new long[candidates.size()];
+        int count = 0;
+        for (Node candidate : candidates) {
+            float[] embedding = toFloats(candidate.getProperty(property, null));
+            if (embedding != null && embedding.length == dim) {
+                System.arraycopy(embedding, 0, data, count * dim, dim);
+                ids[count++] = candidate.getId();
+            }
+        }
+
+        TopK topK = new TopK(VectorKernel.best(), Metric.parse(metric));
+        return topK.select(queryVector, data, count, dim, k.intValue(), concurrency).stream()
+                .map(match -> new SimilarityResult(ids[match.row()], (double) match.score()));
+    }
+
+    private static float[] toFloats(Object value) {
+        if (value instanceof float[] floats) {
+            return floats;
+        }
+        if (value instanceof double[] doubles) {
+            float[] floats = new float[doubles.length];
+            for (int i = 0; i < doubles.length; i++) {
+                floats[i] = (float) doubles[i];
+            }
+            return floats;
+        }
+        if (value instanceof List<?> list && list.stream().allMatch(Number.class::isInstance)) {
+            float[] floats = new float[list.size()];
+            for (int i = 0; i < floats.length; i++) {
+                floats[i] = ((Number) list.get(i)).floatValue();
+            }
+            return floats;
+        }
+        return value instanceof Object[] array ? toFloats(Arrays.asList(array)) : null;
+    }
+}
@@ -0,0 +1,172 @@
+package app.adada.neo4j.util;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Transaction;
+
+import app.adada.neo4j.metrics.MetricsRegistry;
+import app.adada.neo4j.metrics.ModelMetrics;
+import app.adada.neo4j.metrics.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes node properties in parallel, size-bounded transactions.
+ *
+ * <p>
+ * Values are buffered into batches of {@code batchSize} nodes; each full batch
+ * is committed in its own transaction by one of {@code concurrency} workers.
+ * At most {@code 2 * concurrency} batches are in flight, so the producer is
+ * throttled instead of buffering the whole result. Commits are recorded as
+ * write-back in the metrics of the model bound when the writer is created.
+ * {@link #writeNanos()} is the wall-clock time during which at least one batch
+ * was being committed, so it excludes the time spent producing the values.
+ */
+public class BatchedPropertyWriter implements AutoCloseable {
+
+    private final GraphDatabaseService db;
+    private final String property;
+    private final int batchSize;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final List<Future<?>> futures = new ArrayList<>();
+    private final AtomicLong written = new AtomicLong();
+    private final Object busyLock = new Object();
+    private int active;
+    private long busySince;
+    private long busyNanos;
+    private final ModelMetrics metrics = MetricsRegistry.current();
+
+    private long[] ids;
+    private Object[] values;
+    private int size;
+
+    public BatchedPropertyWriter(GraphDatabaseService db, String property, int concurrency, int batchSize) {
+        if (concurrency <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("`writeConcurrency` and `writeBatchSize` must be positive");
+        }
+        this.db = db;
+        this.property = property;
+        this.batchSize = batchSize;
+        this.executor = Executors.newFixedThreadPool(concurrency);
+        this.inFlight = new Semaphore(2 * concurrency);
+        this.ids = new long[batchSize];
+        this.values = new Object[batchSize];
+    }
+
+    /**
+     * Queues a property value for the node with the given internal id.
+     */
+    public void add(long nodeId, Object value) {
+        ids[size] = nodeId;
+        values[size] = value;
+        if (++size == batchSize) {
+            submit();
+        }
+    }
+
+    private void submit() {
+        long[] batchIds = ids;
+        Object[] batchValues = values;
+        int batchCount = size;
+        ids = new long[batchSize];
+        values = new Object[batchSize];
+        size = 0;
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for write batches", e);
+        }
+        futures.add(executor.submit(() -> {
+            try {
+                write(batchIds, batchValues, batchCount);
+            } finally {
+                inFlight.release();
+            }
+        }));
+        // Surface failures early and keep the future list short
+        futures.removeIf(future -> future.isDone() && get(future));
+    }
+
+    @SuppressWarnings("removal")
+    private void write(long[] batchIds, Object[] batchValues, int batchCount) {
+        long start = System.nanoTime();
+        synchronized (busyLock) {
+            if (active++ == 0) {
+                busySince = start;
+            }
+        }
+        int count = 0;
+        try (Transaction tx = db.beginTx()) {
+            for (int i = 0; i < batchCount; i++) {
+                try {
+                    tx.getNodeById(batchIds[i]).setProperty(property, batchValues[i]);
+                    count++;
+                } catch (NotFoundException e) {
+                    continue; // deleted concurrently
+                }
+            }
+            tx.commit();
+        } finally {
+            synchronized (busyLock) {
+                if (--active == 0) {
+                    busyNanos += System.nanoTime() - busySince;
+                }
+            }
+        }
+        written.addAndGet(count);
+        if (metrics != null) {
+            metrics.record(Stage.WRITE_BACK, System.nanoTime() - start, count);
+        }
+    }
+
+    private static boolean get(Future<?> future) {
+        try {
+            future.get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for write batches", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to write property batch", e.getCause());
+        }
+    }
+
+    /**
+     * Flushes the last partial batch and waits for all writes to commit.
+     *
+     * @return the number of nodes written
+     */
+    public long finish() {
+        if (size > 0) {
+            submit();
+        }
+        for (Future<?> future : futures) {
+            get(future);
+        }
+        futures.clear();
+        return written.get();
+    }
+
+    /**
+     * Returns the wall-clock time spent committing batches so far.
+     */
+    public long writeNanos() {
+        synchronized (busyLock) {
+            return active == 0 ? busyNanos : busyNanos + System.nanoTime() - busySince;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,88 @@
+package app.adada.neo4j.util;
+
+/**
+ * Bit set over long indices (e.g. internal node ids), allocated in pages of
+ * 4M bits so sparse high ids stay cheap. Not thread-safe.
+ */
+public class LongBitSet {
+
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_WORDS = 1 << PAGE_SHIFT;
+
+    private long[][] pages = new long[0][];
+
+    public void set(long index) {
+        long word = index >>> 6;
+        page((int) (word >>> PAGE_SHIFT))[(int) (word & (PAGE_WORDS - 1))] |= 1L << index;
+    }
+
+    private long[] page(int page) {
+        if (page >= pages.length) {
+            long[][] grown = new long[Math.max(page + 1, pages.length * 2)][];
+            System.arraycopy(pages, 0, grown, 0, pages.length);
+            pages = grown;
+        }
+        if (pages[page] == null) {
+            pages[page] = new long[PAGE_WORDS];
+        }
+        return pages[page];
+    }
+
+    public boolean get(long index) {
+        long word = index >>> 6;
+        int page = (int) (word >>> PAGE_SHIFT);
+        return page < pages.length && pages[page] != null
+                && (pages[page][(int) (word & (PAGE_WORDS - 1))] & (1L << index)) != 0;
+    }
+
+    /** Adds all bits of {@code other}. */
+    public void or(LongBitSet other) {
+        for (int p = 0; p < other.pages.length; p++) {
+            long[] words = other.pages[p];
+            if (words == null) {
+                continue;
+            }
+            long[] target = page(p);
+            for (int w = 0; w < PAGE_WORDS; w++) {
+                target[w] |= words[w];
+            }
+        }
+    }
+
+    public long cardinality() {
+        long count = 0;
+        for (long[] words : pages) {
+            if (words != null) {
+                for (long word : words) {
+                    count += Long.bitCount(word);
+                }
+            }
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return nextSetBit(0) < 0;
+    }
+
+    /** Index of the first set bit at or after {@code from}, or -1. */
+    public long nextSetBit(long from) {
+        long word = from >>> 6;
+        int page = (int) (word >>> PAGE_SHIFT);
+        int w = (int) (word & (PAGE_WORDS - 1));
+        long mask = -1L << from;
+        for (; page < pages.length; page++, w = 0, mask = -1L) {
+            long[] words = pages[page];
+            if (words == null) {
+                continue;
+            }
+            for (; w < PAGE_WORDS; w++, mask = -1L) {
+                long bits = words[w] & mask;
+                if (bits != 0) {
+                    return ((long) page << PAGE_SHIFT | w) << 6 | Long.numberOfTrailingZeros(bits);
+                }
+            }
+        }
+        return -1;
+    }
+}
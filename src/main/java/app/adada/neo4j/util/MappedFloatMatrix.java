@@ -0,0 +1,125 @@
+package app.adada.neo4j.util;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Off-heap {@code [rows, dim]} float matrix backed by a memory-mapped file.
+ *
+ * <p>
+ * A single {@link MappedByteBuffer} is limited to 2 GB, so the file is mapped
+ * in segments holding a whole number of rows. Used for intermediate layer
+ * outputs that do not fit on the heap (e.g. {@code [N, hidden]} for millions of
+ * nodes).
+ */
+public class MappedFloatMatrix implements AutoCloseable {
+
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final Path file;
+    private final boolean temporary;
+    private final long rows;
+    private final int dim;
+    private final int rowsPerSegment;
+    private final FloatBuffer[] segments;
+
+    private MappedFloatMatrix(Path file, boolean temporary, long rows, int dim) throws IOException {
+        if (dim <= 0) {
+            throw new IllegalArgumentException("Matrix dimension must be positive: " + dim);
+        }
+        this.file = file;
+        this.temporary = temporary;
+        this.rows = rows;
+        this.dim = dim;
+        long rowBytes = (long) dim * Float.BYTES;
+        this.rowsPerSegment = (int) Math.max(1, MAX_SEGMENT_BYTES / rowBytes);
+        int numSegments = (int) ((rows + rowsPerSegment - 1) / rowsPerSegment);
+        this.segments = new FloatBuffer[numSegments];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            for (int s = 0; s < numSegments; s++) {
+                long first = (long) s * rowsPerSegment;
+                long count = Math.min(rowsPerSegment, rows - first);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, first * rowBytes,
+                        count * rowBytes);
+                segments[s] = buffer.order(ByteOrder.nativeOrder()).asFloatBuffer();
+            }
+        }
+    }
+
+    /**
+     * Creates a matrix in a temporary file which is deleted on {@link #close()}.
+     */
+    public static MappedFloatMatrix temporary(long rows, int dim) {
+        try {
+            Path file = Files.createTempFile("neotorch_matrix_", ".bin");
+            file.toFile().deleteOnExit();
+            return new MappedFloatMatrix(file, true, rows, dim);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create off-heap matrix of " + rows + "x" + dim, e);
+        }
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public int dim() {
+        return dim;
+    }
+
+    public void setRow(long row, float[] values, int offset) {
+        FloatBuffer segment = segments[(int) (row / rowsPerSegment)];
+        segment.put((int) (row % rowsPerSegment) * dim, values, offset, dim);
+    }
+
+    public void getRow(long row, float[] values, int offset) {
+        FloatBuffer segment = segments[(int) (row / rowsPerSegment)];
+        segment.get((int) (row % rowsPerSegment) * dim, values, offset, dim);
+    }
+
+    public float[] getRow(long row) {
+        float[] values = new float[dim];
+        getRow(row, values, 0);
+        return values;
+    }
+
+    /**
+     * Gathers the given rows into one row-major array of shape
+     * {@code [indices.length, dim]}.
+     */
+    public float[] gather(int[] indices) {
+        float[] values = new float[indices.length * dim];
+        for (int i = 0; i < indices.length; i++) {
+            getRow(indices[i], values, i * dim);
+        }
+        return values;
+    }
+
+    /**
+     * Scatters a row-major {@code [count, dim]} array into consecutive rows
+     * {@code indices[0..count)}.
+     */
+    public void scatter(int[] indices, int count, float[] values) {
+        for (int i = 0; i < count; i++) {
+            setRow(indices[i], values, i * dim);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (temporary) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.printf("Failed to delete off-heap matrix '%s': %s%n", file, e.getMessage());
+            }
+        }
+    }
+}
@@ -25,7 +25,7 @@ public class ModelBuilder {
         in.close();
 
         List<String> fullCommand = new ArrayList<>();
-        fullCommand.add(settings.pyInterpreter);
+        fullCommand.add(settings.pyInterpreter());
         fullCommand.add(tempScript.toAbsolutePath().toString());
         fullCommand.addAll(command);
         ProcessBuilder pb = new ProcessBuilder(fullCommand);
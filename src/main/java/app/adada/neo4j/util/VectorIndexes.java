@@ -0,0 +1,58 @@
+package app.adada.neo4j.util;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers for Neo4j vector indexes over embedding properties.
+ */
+public class VectorIndexes {
+
+    private VectorIndexes() {
+    }
+
+    /**
+     * Creates the vector index, or re-creates it if an index with the same name
+     * has a different dimension or similarity function.
+     *
+     * @return the index name
+     */
+    public static String ensure(GraphDatabaseService db, String label, String property, int dimensions,
+            String similarity) {
+        if (!"cosine".equals(similarity) && !"euclidean".equals(similarity)) {
+            throw new IllegalArgumentException("Unsupported vector similarity: " + similarity);
+        }
+        String name = ("neotorch_" + label + "_" + property).replaceAll("[^A-Za-z0-9_]", "_");
+
+        boolean stale = db.executeTransactionally(
+                "SHOW VECTOR INDEXES YIELD name, labelsOrTypes, properties, options WHERE name = $name "
+                        + "RETURN labelsOrTypes, properties, options",
+                Map.of("name", name),
+                result -> {
+                    if (!result.hasNext()) {
+                        return false;
+                    }
+                    Map<String, Object> row = result.next();
+                    Map<?, ?> options = (Map<?, ?>) row.get("options");
+                    Map<?, ?> indexConfig = (Map<?, ?>) options.get("indexConfig");
+                    Object dims = indexConfig.get("vector.dimensions");
+                    Object function = indexConfig.get("vector.similarity_function");
+                    return !List.of(label).equals(row.get("labelsOrTypes"))
+                            || !List.of(property).equals(row.get("properties"))
+                            || !(dims instanceof Number number && number.intValue() == dimensions)
+                            || !similarity.equalsIgnoreCase(String.valueOf(function));
+                });
+        if (stale) {
+            System.out.printf("Re-creating vector index '%s'%n", name);
+            db.executeTransactionally("DROP INDEX `" + name + "` IF EXISTS");
+        }
+        db.executeTransactionally(String.format(
+                "CREATE VECTOR INDEX `%s` IF NOT EXISTS FOR (n:`%s`) ON (n.`%s`) "
+                        + "OPTIONS {indexConfig: {`vector.dimensions`: %d, `vector.similarity_function`: '%s'}}",
+                name, label.replace("`", "``"), property.replace("`", "``"), dimensions, similarity));
+        db.executeTransactionally("CALL db.awaitIndex($name, 3600)", Map.of("name", name));
+        return name;
+    }
+}
@@ -15,6 +15,7 @@ from torch.nn import (
     BatchNorm1d,
 )
 from torch_geometric.nn import SAGEConv
+from torch_geometric.nn.dense.linear import Linear as PygLinear
 
 
 def transform_activation(activ) -> Module:
@@ -140,15 +141,38 @@ class GNN(Module):
             conv.reset_parameters()
 
     def forward(self, x: torch.Tensor, edge_index: torch.Tensor) -> torch.Tensor:
-        if self.lin1 is not None:
-            for lin in self.lin1:
-                x = lin(x)
+        x = self.forward_pre(x)
         # Residual method: https://ar5iv.labs.arxiv.org/html/1603.05027
         for conv in self.convs:
             if self.residual:
                 x = conv(x, edge_index) + x
             else:
                 x = conv(x, edge_index)
+        return self.forward_post(x)
+
+    # Layer-wise inference entry points (called by name from the plugin)
+    @torch.jit.export
+    def forward_pre(self, x: torch.Tensor) -> torch.Tensor:
+        if self.lin1 is not None:
+            for lin in self.lin1:
+                x = lin(x)
+        return x
+
+    @torch.jit.export
+    def forward_layer(
+        self, x: torch.Tensor, edge_index: torch.Tensor, layer: torch.Tensor
+    ) -> torch.Tensor:
+        index = int(layer.item())
+        for i, conv in enumerate(self.convs):
+            if i == index:
+                if self.residual:
+                    x = conv(x, edge_index) + x
+                else:
+                    x = conv(x, edge_index)
+        return x
+
+    @torch.jit.export
+    def forward_post(self, x: torch.Tensor) -> torch.Tensor:
         if self.lin2 is not None:
             x = self.dropout(self.activate(self.norm(x)))
             for lin in self.lin2:
@@ -156,6 +180,46 @@ class GNN(Module):
         return x
 
 
+def freeze_for_inference(name, output_dir):
+    """
+    {name}-trained.pt (scripted module with trained weights, written by the
+    plugin) -> {name}-inference.pt: eval mode, frozen and optimized, so dropout
+    is removed and parameters become constants that can be folded and fused.
+    """
+    methods = ["forward_pre", "forward_layer", "forward_post"]
+    model = torch.jit.load(os.path.join(output_dir, f"{name}-trained.pt"), map_location="cpu")
+    model.eval()
+    model = torch.jit.freeze(model, preserved_attrs=methods)
+    model = torch.jit.optimize_for_inference(model, other_methods=methods)
+    torch.jit.save(model, os.path.join(output_dir, f"{name}-inference.pt"))
+
+
+def quantize_for_inference(model, name, output_dir):
+    """
+    {name}-trained.pt -> {name}-int8.pt: the trained weights are loaded into the
+    eager model and every Linear, including those inside SAGEConv, is
+    dynamically quantized to int8. Activations are quantized per batch at run
+    time, so no calibration data is needed. Runs on CPU only.
+    """
+    trained = torch.jit.load(os.path.join(output_dir, f"{name}-trained.pt"), map_location="cpu")
+    model.load_state_dict(trained.state_dict())
+    model.eval()
+    # SAGEConv uses the PyG Linear, which quantize_dynamic does not recognize
+    for module in list(model.modules()):
+        for child_name, child in list(module.named_children()):
+            if isinstance(child, PygLinear):
+                linear = Linear(child.in_channels, child.out_channels, bias=child.bias is not None)
+                linear.weight = child.weight
+                linear.bias = child.bias
+                setattr(module, child_name, linear)
+    model = torch.ao.quantization.quantize_dynamic(model, {Linear}, dtype=torch.qint8)
+    model = torch.jit.script(model)
+    # Replaced atomically, the plugin may be loading the previous artifact
+    path = os.path.join(output_dir, f"{name}-int8.pt")
+    torch.jit.save(model, path + ".tmp")
+    os.replace(path + ".tmp", path)
+
+
 def set_seed(seed=42):
     random.seed(seed)
     np.random.seed(seed)
@@ -184,8 +248,17 @@ if __name__ == "__main__":
     parser.add_argument("--dropout", type=float, default=0.0)
     parser.add_argument("--norm", type=str, default="none")
     parser.add_argument("--residual", action="store_true")
+    parser.add_argument("--freeze", action="store_true")
+    parser.add_argument("--quantize", action="store_true")
     args = parser.parse_args()
 
+    if args.freeze:
+        t = time.time()
+        freeze_for_inference(args.name, args.output_dir)
+        print(f">>> 推論模型已凍結並保存為 '{args.name}-inference.pt'")
+        print(f">>> 凍結時間: {time.time() - t:.2f}秒")
+        raise SystemExit(0)
+
     set_seed(args.seed)
 
     model = GNN(
@@ -202,6 +275,12 @@ if __name__ == "__main__":
         residual=args.residual,
     )
     t = time.time()
+    if args.quantize:
+        quantize_for_inference(model, args.name, args.output_dir)
+        print(f">>> int8 量化模型已保存為 '{args.name}-int8.pt'")
+        print(f">>> 量化時間: {time.time() - t:.2f}秒")
+        raise SystemExit(0)
+
     model.train()
     model = torch.jit.script(model)
     torch.jit.save(model, os.path.join(args.output_dir, f"{args.name}.pt"))